@@ -0,0 +1,112 @@
+package com.alperez.widget;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.view.Choreographer;
+
+/**
+ * Posts frame callbacks on the UI thread for the shared per-frame engines. Uses {@link Choreographer}
+ * where it is available and a {@link Handler} with a fixed frame delay before Jelly Bean.
+ * Posting allocates nothing.
+ *
+ * This class is not thread-safe. All methods must be called from the UI thread.
+ */
+abstract class FrameDriver {
+
+    interface Callback {
+        /**
+         * @param frameTimeMs time of the frame in the {@link SystemClock#uptimeMillis()} time base
+         */
+        void doFrame(long frameTimeMs);
+    }
+
+    private static final long FALLBACK_FRAME_DELAY_MS = 16;
+
+    static FrameDriver create(Callback callback) {
+        return (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) ? new ChoreographerDriver(callback) : new HandlerDriver(callback);
+    }
+
+    final Callback callback;
+
+    private FrameDriver(Callback callback) {
+        this.callback = callback;
+    }
+
+    /**
+     * Posts a callback for the next frame
+     */
+    abstract void postFrame();
+
+    /**
+     * Posts a callback for the first frame after the delay
+     */
+    abstract void postFrameDelayed(long delayMs);
+
+    /**
+     * Removes a posted callback, if any
+     */
+    abstract void removeFrame();
+
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private static final class ChoreographerDriver extends FrameDriver implements Choreographer.FrameCallback {
+
+        ChoreographerDriver(Callback callback) {
+            super(callback);
+        }
+
+        @Override
+        void postFrame() {
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+
+        @Override
+        void postFrameDelayed(long delayMs) {
+            Choreographer.getInstance().postFrameCallbackDelayed(this, delayMs);
+        }
+
+        @Override
+        void removeFrame() {
+            Choreographer.getInstance().removeFrameCallback(this);
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            callback.doFrame(frameTimeNanos / 1000000);
+        }
+    }
+
+    /**
+     * Used before Jelly Bean, where Choreographer is not available
+     */
+    private static final class HandlerDriver extends FrameDriver implements Runnable {
+        private final Handler handler = new Handler(Looper.getMainLooper());
+
+        HandlerDriver(Callback callback) {
+            super(callback);
+        }
+
+        @Override
+        void postFrame() {
+            handler.postDelayed(this, FALLBACK_FRAME_DELAY_MS);
+        }
+
+        @Override
+        void postFrameDelayed(long delayMs) {
+            handler.postDelayed(this, Math.max(delayMs, FALLBACK_FRAME_DELAY_MS));
+        }
+
+        @Override
+        void removeFrame() {
+            handler.removeCallbacks(this);
+        }
+
+        @Override
+        public void run() {
+            callback.doFrame(SystemClock.uptimeMillis());
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.alperez.widget;
+
+/**
+ * Advances level meters of all attached seek bars from a single frame callback on the UI thread.
+ * While every meter is idle - nothing was published and all levels have decayed to zero - frames are
+ * not requested. Meters are then polled at a low rate instead, so a signal which comes back is shown
+ * with at most {@link #IDLE_POLL_INTERVAL_MS} of delay.
+ *
+ * This class is not thread-safe. All methods must be called from the UI thread.
+ */
+final class LevelMeterTicker {
+
+    interface Client {
+        /**
+         * Advances the meter to the frame time and redraws it if it has changed.
+         *
+         * @return true if the meter is still active, false if it is idle
+         */
+        boolean onLevelMeterFrame(long frameTimeMs);
+    }
+
+    private static final int INITIAL_CAPACITY = 16;
+    static final long IDLE_POLL_INTERVAL_MS = 100;
+
+    private static LevelMeterTicker sInstance;
+
+    static LevelMeterTicker getInstance() {
+        if (sInstance == null) {
+            sInstance = new LevelMeterTicker();
+        }
+        return sInstance;
+    }
+
+    //----  Registered clients. Slots [0, mCount) are occupied  ----
+    private Client[] mClients = new Client[INITIAL_CAPACITY];
+    private int mCount;
+
+    private final FrameDriver mDriver;
+    private boolean mFrameScheduled;
+    private boolean mIdlePollScheduled;
+
+    private LevelMeterTicker() {
+        mDriver = FrameDriver.create(new FrameDriver.Callback() {
+            @Override
+            public void doFrame(long frameTimeMs) {
+                LevelMeterTicker.this.doFrame(frameTimeMs);
+            }
+        });
+    }
+
+    /**
+     * Registers a client. It gets callbacks from the next frame on. Registering twice has no effect.
+     */
+    void add(Client client) {
+        if (indexOf(client) >= 0) return;
+        if (mCount == mClients.length) {
+            final Client[] clients = new Client[2 * mCount];
+            System.arraycopy(mClients, 0, clients, 0, mCount);
+            mClients = clients;
+        }
+        mClients[mCount ++] = client;
+        scheduleFrame();
+    }
+
+    void remove(Client client) {
+        final int slot = indexOf(client);
+        if (slot < 0) return;
+        // O(1) removal by moving the last occupied slot into its place
+        final int last = --mCount;
+        mClients[slot] = mClients[last];
+        mClients[last] = null;
+        if (mCount == 0) {
+            mDriver.removeFrame();
+            mFrameScheduled = mIdlePollScheduled = false;
+        }
+    }
+
+    /**
+     * Makes sure a client gets a callback on the next frame, not only on the next idle poll. Used when a meter is
+     * attached to a seek bar, or reset.
+     */
+    void wakeUp() {
+        if (mCount > 0) {
+            scheduleFrame();
+        }
+    }
+
+    private int indexOf(Client client) {
+        for (int slot = 0; slot < mCount; slot++) {
+            if (mClients[slot] == client) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private void scheduleFrame() {
+        if (mIdlePollScheduled) {
+            mDriver.removeFrame();
+            mIdlePollScheduled = false;
+        }
+        if (!mFrameScheduled) {
+            mFrameScheduled = true;
+            mDriver.postFrame();
+        }
+    }
+
+    private void doFrame(long frameTimeMs) {
+        mFrameScheduled = mIdlePollScheduled = false;
+        boolean active = false;
+        // Iterate backwards, so clients removed during iteration do not shift unprocessed ones
+        for (int slot = mCount - 1; slot >= 0; slot--) {
+            if (slot >= mCount) continue;
+            if (mClients[slot].onLevelMeterFrame(frameTimeMs)) {
+                active = true;
+            }
+        }
+        if (mCount == 0 || mFrameScheduled || mIdlePollScheduled) return;
+        if (active) {
+            mFrameScheduled = true;
+            mDriver.postFrame();
+        } else {
+            mIdlePollScheduled = true;
+            mDriver.postFrameDelayed(IDLE_POLL_INTERVAL_MS);
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.alperez.widget;
+
+import android.view.animation.Interpolator;
+
+import java.util.Arrays;
+
+/**
+ * Drives progress animations of all seek bars from a single frame callback on the UI thread.
+ * In-flight animations are kept in parallel primitive arrays, so no objects are allocated per frame.
+ * Arrays grow only when the number of simultaneous animations exceeds their capacity.
+ *
+ * This class is not thread-safe. All methods must be called from the UI thread.
+ */
+final class ProgressAnimationEngine {
+
+    /**
+     * Receiver of animated values. One target may run independent animations for several channels.
+     */
+    abstract static class Target {
+        // Slot of each channel's animation, -1 if the channel is not animated. Maintained by the engine only
+        private int[] mSlots = NO_SLOTS;
+
+        abstract void onAnimatedProgress(int channel, float progress);
+
+        /**
+         * Called when an animation is finished or cancelled, but not when it is retargeted.
+         */
+        abstract void onProgressAnimationEnded(int channel);
+    }
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int[] NO_SLOTS = new int[0];
+
+    private static ProgressAnimationEngine sInstance;
+
+    static ProgressAnimationEngine getInstance() {
+        if (sInstance == null) {
+            sInstance = new ProgressAnimationEngine();
+        }
+        return sInstance;
+    }
+
+    //----  In-flight animations. Slots [0, mCount) are occupied  ----
+    private int mCount;
+    private Target[] mTargets;
+    private int[] mChannels;
+    private float[] mFrom;
+    private float[] mTo;
+    private long[] mStartTime;     // -1 if the animation starts on the next frame
+    private long[] mDuration;
+    private Interpolator[] mInterpolators;
+
+    private final FrameDriver mDriver;
+    private boolean mFrameScheduled;
+
+    private ProgressAnimationEngine() {
+        allocate(INITIAL_CAPACITY);
+        mDriver = FrameDriver.create(new FrameDriver.Callback() {
+            @Override
+            public void doFrame(long frameTimeMs) {
+                ProgressAnimationEngine.this.doFrame(frameTimeMs);
+            }
+        });
+    }
+
+    private void allocate(int capacity) {
+        Target[] targets = new Target[capacity];
+        int[] channels = new int[capacity];
+        float[] from = new float[capacity];
+        float[] to = new float[capacity];
+        long[] startTime = new long[capacity];
+        long[] duration = new long[capacity];
+        Interpolator[] interpolators = new Interpolator[capacity];
+        if (mCount > 0) {
+            System.arraycopy(mTargets, 0, targets, 0, mCount);
+            System.arraycopy(mChannels, 0, channels, 0, mCount);
+            System.arraycopy(mFrom, 0, from, 0, mCount);
+            System.arraycopy(mTo, 0, to, 0, mCount);
+            System.arraycopy(mStartTime, 0, startTime, 0, mCount);
+            System.arraycopy(mDuration, 0, duration, 0, mCount);
+            System.arraycopy(mInterpolators, 0, interpolators, 0, mCount);
+        }
+        mTargets = targets;
+        mChannels = channels;
+        mFrom = from;
+        mTo = to;
+        mStartTime = startTime;
+        mDuration = duration;
+        mInterpolators = interpolators;
+    }
+
+    /**
+     * Starts animation of a target's channel. If this channel is already being animated, the animation
+     * is retargeted in place - it continues from the given current value to the new one.
+     *
+     * @param interpolator null means linear interpolation
+     */
+    void start(Target target, int channel, float from, float to, long durationMs, Interpolator interpolator) {
+        if (durationMs < 0) throw new IllegalArgumentException("Duration must not be negative");
+        if (channel < 0) throw new IllegalArgumentException("Channel must not be negative");
+        int slot = slotOf(target, channel);
+        if (slot < 0) {
+            if (mCount == mTargets.length) {
+                allocate(2 * mCount);
+            }
+            if (channel >= target.mSlots.length) {
+                growSlots(target, channel + 1);
+            }
+            slot = mCount ++;
+            mTargets[slot] = target;
+            mChannels[slot] = channel;
+            target.mSlots[channel] = slot;
+        }
+        mFrom[slot] = from;
+        mTo[slot] = to;
+        mStartTime[slot] = -1;
+        mDuration[slot] = durationMs;
+        mInterpolators[slot] = interpolator;
+        scheduleFrame();
+    }
+
+    void cancel(Target target, int channel) {
+        final int slot = slotOf(target, channel);
+        if (slot >= 0) {
+            remove(slot);
+            target.onProgressAnimationEnded(channel);
+        }
+    }
+
+    void cancelAll(Target target) {
+        // The map is re-read on each step, a callback may start another animation and grow it
+        for (int channel = 0; channel < target.mSlots.length; channel++) {
+            final int slot = target.mSlots[channel];
+            if (slot >= 0) {
+                remove(slot);
+                target.onProgressAnimationEnded(channel);
+            }
+        }
+    }
+
+    /**
+     * @return slot of the channel's animation or -1. O(1), so starting animations of all channels is linear.
+     */
+    private static int slotOf(Target target, int channel) {
+        final int[] slots = target.mSlots;
+        return (channel >= 0 && channel < slots.length) ? slots[channel] : -1;
+    }
+
+    private static void growSlots(Target target, int minLength) {
+        final int[] old = target.mSlots;
+        final int[] slots = new int[Math.max(minLength, 2 * old.length)];
+        System.arraycopy(old, 0, slots, 0, old.length);
+        Arrays.fill(slots, old.length, slots.length, -1);
+        target.mSlots = slots;
+    }
+
+    /**
+     * Removes a slot in O(1) by moving the last occupied slot into its place.
+     */
+    private void remove(int slot) {
+        final int last = --mCount;
+        mTargets[slot].mSlots[mChannels[slot]] = -1;
+        if (slot != last) {
+            mTargets[slot] = mTargets[last];
+            mChannels[slot] = mChannels[last];
+            mFrom[slot] = mFrom[last];
+            mTo[slot] = mTo[last];
+            mStartTime[slot] = mStartTime[last];
+            mDuration[slot] = mDuration[last];
+            mInterpolators[slot] = mInterpolators[last];
+            mTargets[slot].mSlots[mChannels[slot]] = slot;
+        }
+        mTargets[last] = null;
+        mInterpolators[last] = null;
+    }
+
+    private void scheduleFrame() {
+        if (!mFrameScheduled) {
+            mFrameScheduled = true;
+            mDriver.postFrame();
+        }
+    }
+
+    private void doFrame(long frameTimeMs) {
+        mFrameScheduled = false;
+        // Iterate backwards, so slots removed during iteration do not shift unprocessed ones
+        for (int slot = mCount - 1; slot >= 0; slot--) {
+            if (slot >= mCount) continue;   // Several slots were removed by a callback
+            if (mStartTime[slot] < 0) {
+                mStartTime[slot] = frameTimeMs;
+            }
+            final long elapsed = frameTimeMs - mStartTime[slot];
+            final long duration = mDuration[slot];
+            final Target target = mTargets[slot];
+            final int channel = mChannels[slot];
+            if (elapsed >= duration) {
+                final float to = mTo[slot];
+                remove(slot);
+                target.onAnimatedProgress(channel, to);
+                target.onProgressAnimationEnded(channel);
+            } else {
+                float fraction = (float) elapsed / (float) duration;
+                final Interpolator interpolator = mInterpolators[slot];
+                if (interpolator != null) {
+                    fraction = interpolator.getInterpolation(fraction);
+                }
+                target.onAnimatedProgress(channel, mFrom[slot] + (mTo[slot] - mFrom[slot]) * fraction);
+            }
+        }
+        if (mCount > 0) {
+            scheduleFrame();
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.alperez.widget;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * One render thread for all {@link VerticalSeekBarTextureView} instances. The thread is started when the first
+ * target is added and stops when the last one is released, so the number of threads does not grow with the
+ * number of bars. It sleeps while no target has requested a frame. Requesting a frame never blocks and
+ * allocates nothing.
+ *
+ * All targets share the thread, so a target which blocks in drawing - e.g. a surface whose consumer does not
+ * return buffers - delays the others. Interrupting the thread does not stop it, it is owned by this class.
+ *
+ * This class is thread-safe.
+ */
+final class SharedRenderThread implements Runnable {
+
+    /**
+     * Something drawn on the render thread. Both callbacks are called on the render thread only.
+     */
+    static abstract class Target {
+        private final AtomicBoolean mRenderRequested = new AtomicBoolean();
+
+        /**
+         * Draws one frame. Called once for any number of {@link #requestRender(Target)} calls made before.
+         */
+        abstract void onRender();
+
+        /**
+         * Called once after {@link #release(Target)}, no frame is drawn afterwards. Frees the resources of the target.
+         */
+        abstract void onReleased();
+    }
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private static final SharedRenderThread sInstance = new SharedRenderThread();
+
+    static SharedRenderThread getInstance() {
+        return sInstance;
+    }
+
+    private final Object mLock = new Object();
+
+    //----  Guarded by mLock. Slots [0, mCount) are occupied  ----
+    private Target[] mTargets = new Target[INITIAL_CAPACITY];
+    private int mCount;
+    private Target[] mReleased = new Target[INITIAL_CAPACITY];
+    private int mReleasedCount;
+    private Thread mThread;
+
+    //----  Confined to the render thread. Copies of the lists above, taken once per loop  ----
+    private Target[] mRendering = new Target[INITIAL_CAPACITY];
+    private Target[] mReleasing = new Target[INITIAL_CAPACITY];
+
+    // Unparked on a request. Written under mLock
+    private volatile Thread mWakeUpThread;
+
+    SharedRenderThread() {
+    }
+
+    /**
+     * Adds a target and requests its first frame. Starts the thread if it is not running.
+     */
+    void add(Target target) {
+        synchronized (mLock) {
+            mTargets = append(mTargets, mCount, target);
+            mCount ++;
+            if (mThread == null) {
+                mThread = new Thread(this, "VerticalSeekBarRender");
+                mWakeUpThread = mThread;
+                mThread.start();
+            }
+        }
+        requestRender(target);
+    }
+
+    /**
+     * Removes a target. Never waits for the render thread - a frame of the target may still be in progress.
+     * {@link Target#onReleased()} is called on the render thread after that frame.
+     */
+    void release(Target target) {
+        synchronized (mLock) {
+            int slot = -1;
+            for (int i = 0; i < mCount; i++) {
+                if (mTargets[i] == target) {
+                    slot = i;
+                    break;
+                }
+            }
+            if (slot < 0) return;
+            // O(1) removal by moving the last occupied slot into its place
+            final int last = --mCount;
+            mTargets[slot] = mTargets[last];
+            mTargets[last] = null;
+            mReleased = append(mReleased, mReleasedCount, target);
+            mReleasedCount ++;
+        }
+        wakeUp();
+    }
+
+    /**
+     * Requests a frame of a target. Can be called from any thread.
+     */
+    void requestRender(Target target) {
+        if (target.mRenderRequested.compareAndSet(false, true)) {
+            wakeUp();
+        }
+    }
+
+    /**
+     * @return the render thread, or null if it is not running
+     */
+    Thread getThread() {
+        synchronized (mLock) {
+            return mThread;
+        }
+    }
+
+    private void wakeUp() {
+        final Thread thread = mWakeUpThread;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    @Override
+    public void run() {
+        final Thread self = Thread.currentThread();
+        try {
+            for (;;) {
+                final int nRendering;
+                final int nReleasing;
+                synchronized (mLock) {
+                    if (mCount == 0 && mReleasedCount == 0) {
+                        mThread = null;
+                        mWakeUpThread = null;
+                        return;
+                    }
+                    nRendering = mCount;
+                    if (mRendering.length < nRendering) {
+                        mRendering = new Target[mTargets.length];
+                    }
+                    System.arraycopy(mTargets, 0, mRendering, 0, nRendering);
+                    nReleasing = mReleasedCount;
+                    if (mReleasing.length < nReleasing) {
+                        mReleasing = new Target[mReleased.length];
+                    }
+                    System.arraycopy(mReleased, 0, mReleasing, 0, nReleasing);
+                    for (int i = 0; i < nReleasing; i++) {
+                        mReleased[i] = null;
+                    }
+                    mReleasedCount = 0;
+                }
+
+                boolean rendered = false;
+                for (int i = 0; i < nRendering; i++) {
+                    final Target target = mRendering[i];
+                    mRendering[i] = null;
+                    if (target.mRenderRequested.getAndSet(false)) {
+                        target.onRender();
+                        rendered = true;
+                    }
+                }
+                for (int i = 0; i < nReleasing; i++) {
+                    final Target target = mReleasing[i];
+                    mReleasing[i] = null;
+                    target.onReleased();
+                }
+
+                if (!rendered && nReleasing == 0) {
+                    // Requests made after the copy above unpark the thread, so the park returns at once
+                    Thread.interrupted();
+                    LockSupport.park(this);
+                }
+            }
+        } finally {
+            // Reached with an exception from a target. A thread is started again for the next target added.
+            synchronized (mLock) {
+                if (mThread == self) {
+                    mThread = null;
+                    mWakeUpThread = null;
+                }
+            }
+        }
+    }
+
+    private static Target[] append(Target[] targets, int count, Target target) {
+        if (count == targets.length) {
+            final Target[] grown = new Target[2 * count];
+            System.arraycopy(targets, 0, grown, 0, count);
+            targets = grown;
+        }
+        targets[count] = target;
+        return targets;
+    }
+}
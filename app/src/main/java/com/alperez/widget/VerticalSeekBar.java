@@ -2,30 +2,84 @@ package com.alperez.widget;
 
 import android.annotation.TargetApi;
 import android.content.Context;
-import android.content.res.TypedArray;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
+import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.Path;
 import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
 import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.support.annotation.Nullable;
 import android.support.v4.view.MotionEventCompat;
+import android.support.v4.view.ViewCompat;
 import android.util.AttributeSet;
 import android.view.MotionEvent;
 import android.view.View;
+import android.view.animation.AnimationUtils;
+import android.view.animation.Interpolator;
 
-import com.alperez.verticalseekbardemo.R;
+import com.alperez.widget.core.LevelMeter;
+import com.alperez.widget.core.MetricsRecorder;
+import com.alperez.widget.core.MultiThumbModel;
+import com.alperez.widget.core.ProgressEventBuffer;
+import com.alperez.widget.core.TouchPredictor;
+import com.alperez.widget.core.ValueScale;
+import com.alperez.widget.core.VerticalSeekBarModel;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Created by stanislav.perchenko on 13-Nov-15.
  */
-public class VerticalSeekBar extends View {
+public class VerticalSeekBar extends View implements VerticalSeekBarControl {
+
+    /**
+     * Listener is notified about every change of progress value.
+     */
+    public interface OnProgressChangeListener {
+        /**
+         * @param seekBar the View which progress was changed
+         * @param progress new progress value
+         * @param fromUser true if the change was initiated by user's touch
+         */
+        void onProgressChanged(VerticalSeekBar seekBar, float progress, boolean fromUser);
+    }
+
+    /**
+     * Listener is notified about value changes of thumbs in the multi-thumb mode.
+     */
+    public interface OnThumbValueChangeListener {
+        /**
+         * @param thumbIndex index of the thumb in ascending order of values
+         */
+        void onThumbValueChanged(VerticalSeekBar seekBar, int thumbIndex, float value, boolean fromUser);
+    }
+
+    /**
+     * Listener is notified for each touch sample, including historical samples
+     * batched into a single MotionEvent.
+     */
+    public static final int DISPATCH_EVERY_SAMPLE = 0;
+
+    /**
+     * Listener is notified of user's changes at most once per display frame, on the next animation frame,
+     * with the latest value. All events received within the frame are folded. A pending value is delivered
+     * right away when the touch ends. Changes made from code are delivered immediately in both modes.
+     */
+    public static final int DISPATCH_COALESCED = 1;
+
+    // Geometry and progress model. Android-free, see VerticalSeekBarModel
+    private final VerticalSeekBarModel mModel = new VerticalSeekBarModel();
+
     // Sizes of content items
-    private int mThumbSize = 25;
-    private float mThumbSizeHalf = 12.5f;
     private int mNotSelectedBarWidth = 4;
     private int mSelectedBarWidth = 10;
-    private int mPreferredTouchableAreaWidth;
 
     // Colors of elements
     private int colorNotSelectedBar;
@@ -41,41 +95,153 @@ public class VerticalSeekBar extends View {
     private boolean mTestShowToucableArea;
     private int mTestToucableAreaColor;
 
-    // Cached values of paddings
-    private int paddingLeft;
-    private int paddingTop;
-    private int paddingRight;
-    private int paddingBottom;
-
-    // Size and start position of content area regarding to View's size and paddings.
-    private int contentAreaStartX;
-    private int contentAreaStartY;
-    private int contentAreaWidth;
-    private int contentAreaHeight;
-    private float contentAreaCenterHorizontal;
-    private float thumbPositionYTop;
-    private float thumbPositionYBot;
-    private float touchAreaStartX;
-    private float touchAreaEndX;
-
 
     //----  Status fields  ----
     private boolean targetIsBeingTouched;
+    private int mActivePointerId = -1;
+
+    //----  Touch prediction. The thumb is drawn where the finger is expected to be on the next frame  ----
+    private static final long PREDICTION_LOOKAHEAD_MS = 16;
+    private boolean mTouchPredictionEnabled;
+    private final TouchPredictor mPredictor = new TouchPredictor();
+    private float mPredictedPixelY = Float.NaN;     // NaN if the thumb is drawn at its real position
+    private boolean mPredictionCheckPosted;
+    // No MOVE events come while the finger rests, so a prediction is retired once its lookahead time has passed
+    private final Runnable mRetireStalePrediction = new Runnable() {
+        @Override
+        public void run() {
+            mPredictionCheckPosted = false;
+            if (Float.isNaN(mPredictedPixelY)) return;
+            final long sampleAge = AnimationUtils.currentAnimationTimeMillis() - mPredictor.getNewestSampleTime();
+            if (sampleAge >= PREDICTION_LOOKAHEAD_MS) {
+                final float drawnPixelY = mPredictedPixelY;
+                mPredictedPixelY = Float.NaN;
+                invalidateThumbMove(drawnPixelY, mModel.getPixelYPosition());
+            } else {
+                schedulePredictionCheck();
+            }
+        }
+    };
+
+    //----  Progress listener  ----
+    private OnProgressChangeListener mProgressListener;
+    private int mDispatchMode = DISPATCH_COALESCED;
+    private boolean mProcessHistoricalSamples;
+    private float mLastNotifiedProgress = Float.NaN;
+    // DISPATCH_COALESCED mode. User's changes wait for the next animation frame.
+    private boolean mProgressDispatchPending;
+    private boolean[] mThumbDispatchPending = new boolean[0];
+    private boolean mCoalescedDispatchPosted;
+    private final Runnable mDispatchCoalescedChanges = new Runnable() {
+        @Override
+        public void run() {
+            mCoalescedDispatchPosted = false;
+            dispatchPendingChanges();
+        }
+    };
+
+    //----  Optional stream of progress changes for consumers on other threads  ----
+    private ProgressEventBuffer mEventBuffer;
+    private long mTouchSampleTimeMs;     // Time of the touch sample being processed
+
+    //----  Progress animation, driven by the shared ProgressAnimationEngine  ----
+    private boolean mProgressAnimating;
+    private final ProgressAnimationEngine.Target mAnimationTarget = new ProgressAnimationEngine.Target() {
+        @Override
+        public void onAnimatedProgress(int channel, float progress) {
+            setProgressInternal(progress);
+        }
 
-    private float mPixelYPosition;
-
-
-    //----  Real progress values  ----
-    private float mMin = 0;
-    private float mMax = 100f;
-    private float mProgress = 50f;
-
+        @Override
+        public void onProgressAnimationEnded(int channel) {
+            mProgressAnimating = false;
+        }
+    };
+
+    //----  Progress published from background threads. Only the latest value is kept  ----
+    private final AtomicInteger mPublishedProgressBits = new AtomicInteger();
+    private final AtomicBoolean mPublishedProgressPending = new AtomicBoolean();
+    // View.post() from a foreign thread goes into a thread-local queue while the View is detached and may never run
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable mSchedulePublishedProgress = new Runnable() {
+        @Override
+        public void run() {
+            if (getWindowToken() != null) {
+                ViewCompat.postOnAnimation(VerticalSeekBar.this, mApplyPublishedProgress);
+            } else {
+                // No frames are drawn, so there is nothing to wait for
+                mApplyPublishedProgress.run();
+            }
+        }
+    };
+    private final Runnable mApplyPublishedProgress = new Runnable() {
+        @Override
+        public void run() {
+            // The flag must be cleared before reading the value, so a value published meanwhile is not lost
+            mPublishedProgressPending.set(false);
+            if (!targetIsBeingTouched) {
+                setProgress(Float.intBitsToFloat(mPublishedProgressBits.get()));
+            }
+        }
+    };
+
+    //----  Step mode tick marks. Geometry is rebuilt on layout, range, scale or step change only  ----
+    private int mMajorTickEvery;
+    private int mTickColor;
+    private int mMinorTickLength;
+    private int mMajorTickLength;
+    private boolean mTicksValid;
+    private float[] mTickLines = new float[0];
+    private int mTickLinesLength;
+
+    //----  Cached static track layer (test content area and non-selected bar)  ----
+    private boolean mTrackCacheEnabled = true;
+    private boolean mTrackCacheValid;
+    private Bitmap mTrackCache;
+    private Canvas mTrackCacheCanvas;
+
+    //----  Pre-rendered thumb sprites for the normal and touched (with wrapper) states  ----
+    private static final int[] STATE_NORMAL = new int[0];
+    private static final int[] STATE_PRESSED = new int[] {android.R.attr.state_pressed};
+    private Drawable mThumbDrawable;
+    private boolean mThumbSpritesValid;
+    private Bitmap mThumbSprite;
+    private Bitmap mThumbSpriteTouched;
+    private Canvas mThumbSpriteCanvas;
+
+    //----  Multi-thumb mode. Thumbs are kept in the sorted arrays of MultiThumbModel  ----
+    private static final int MAX_POINTER_ID = 32;
+    private boolean mMultiThumbMode;
+    private final MultiThumbModel mThumbs = new MultiThumbModel(mModel);
+    private int[] mThumbPointerId = new int[0];                 // -1 if a thumb is not touched
+    private final int[] mPointerThumb = new int[MAX_POINTER_ID];  // -1 if a pointer owns no thumb
+    private int mTouchedThumbsCount;
+    private OnThumbValueChangeListener mThumbListener;
+
+    //----  Optional level meter behind the selected bar. Advanced by the shared LevelMeterTicker while attached  ----
+    private static final float LEVEL_HOLD_LINE_WIDTH = 2;
+    private LevelMeter mLevelMeter;
+    private int mLevelRmsColor;
+    private int mLevelPeakColor;
+    private int mLevelHoldColor;
+    private boolean mAttached;
+    private final LevelMeterTicker.Client mLevelMeterClient = new LevelMeterTicker.Client() {
+        @Override
+        public boolean onLevelMeterFrame(long frameTimeMs) {
+            return VerticalSeekBar.this.onLevelMeterFrame(frameTimeMs);
+        }
+    };
 
+    // Last values passed to setMinimumWidth/Height(), which call requestLayout() unconditionally
+    private int mLastMinimumWidth = -1;
+    private int mLastMinimumHeight = -1;
 
-    private boolean wasLayout;
+    // Optional performance metrics. Null when disabled.
+    private MetricsRecorder mMetrics;
 
     private Paint mPaintStroke;
     private Paint mPaintFill;
+    private Paint mPaintBitmap;
 
     public VerticalSeekBar(Context context) {
         super(context);
@@ -102,32 +268,7 @@ public class VerticalSeekBar extends View {
 
     private void extractArguments(@Nullable AttributeSet attrs, int defStyleAttr) {
         if (attrs != null) {
-            TypedArray a = getContext().obtainStyledAttributes(attrs, R.styleable.VerticalSeekBar, defStyleAttr, 0);
-            try {
-                mThumbSize = a.getDimensionPixelSize(R.styleable.VerticalSeekBar_thumbSize, mThumbSize);
-                mThumbSizeHalf = (float)mThumbSize / 2f;
-                mNotSelectedBarWidth = a.getDimensionPixelSize(R.styleable.VerticalSeekBar_notSelectedBarWidth, mNotSelectedBarWidth);
-                mSelectedBarWidth = a.getDimensionPixelSize(R.styleable.VerticalSeekBar_selectedBarWidth, mSelectedBarWidth);
-                mPreferredTouchableAreaWidth = a.getDimensionPixelSize(R.styleable.VerticalSeekBar_prefTouchAreaWidth, 0);
-
-                colorNotSelectedBar = a.getColor(R.styleable.VerticalSeekBar_notSelectedBarColor, colorNotSelectedBar);
-                colorSelectedBar = a.getColor(R.styleable.VerticalSeekBar_selectedBarColor, colorSelectedBar);
-                colorSelectedBarTouched = a.getColor(R.styleable.VerticalSeekBar_selectedBarColorTouched, colorSelectedBarTouched);
-                colorThumb = a.getColor(R.styleable.VerticalSeekBar_thumbColor, colorThumb);
-                colorThumbTouched = a.getColor(R.styleable.VerticalSeekBar_thumbTouchedColor, colorThumbTouched);
-                colorThumbTouchedWrapper = a.getColor(R.styleable.VerticalSeekBar_thumbTouchedWrapperColor, colorThumbTouchedWrapper);
-
-                mTestShowContentArea = a.getBoolean(R.styleable.VerticalSeekBar_testDrawContentArea, false);
-                if (mTestShowContentArea) {
-                    mTestContentAreaColor = a.getColor(R.styleable.VerticalSeekBar_testContentAreaColor, 0);
-                }
-                mTestShowToucableArea = a.getBoolean(R.styleable.VerticalSeekBar_testShowTouchableArea, false);
-                if (mTestShowToucableArea) {
-                    mTestToucableAreaColor = a.getColor(R.styleable.VerticalSeekBar_testTouchableAreaColor, 0);
-                }
-            } finally {
-                a.recycle();
-            }
+            bindConfig(VerticalSeekBarStyle.obtain(getContext(), attrs, defStyleAttr));
         }
     }
 
@@ -138,16 +279,25 @@ public class VerticalSeekBar extends View {
         mPaintFill = new Paint();
         mPaintFill.setAntiAlias(true);
         mPaintFill.setStyle(Paint.Style.FILL);
+        mPaintBitmap = new Paint();
+        mPaintBitmap.setFilterBitmap(true);
+        Arrays.fill(mPointerThumb, -1);
         validateElementsSize();
         updatePaddingInternal();
     }
 
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
-        final int minW = mThumbSize + paddingLeft + paddingRight;
-        final int minH = 5*mThumbSize + paddingTop + paddingBottom;
-        setMinimumWidth(minW);
-        setMinimumHeight(minH);
+        final int minW = mModel.getMinimumWidth();
+        final int minH = mModel.getMinimumHeight();
+        if (minW != mLastMinimumWidth) {
+            mLastMinimumWidth = minW;
+            setMinimumWidth(minW);
+        }
+        if (minH != mLastMinimumHeight) {
+            mLastMinimumHeight = minH;
+            setMinimumHeight(minH);
+        }
 
         setMeasuredDimension(getActualViewSize(minW, widthMeasureSpec), getActualViewSize(minH, heightMeasureSpec));
         //super.setMeasuredDimension(widthMeasureSpec, heightMeasureSpec);
@@ -177,98 +327,110 @@ public class VerticalSeekBar extends View {
     public void setPadding(int left, int top, int right, int bottom) {
         super.setPadding(left, top, right, bottom);
         updatePaddingInternal();
-        if (wasLayout) {
-            updateContentAreaSize(getWidth(), getHeight());
-            updateTouchableAreaYBounds();
-        }
-    }
-
-    @Override
-    public void requestLayout() {
-        super.requestLayout();
-        wasLayout = false;
     }
 
+    /**
+     * Geometry is recalculated only if the size has changed. Paddings and element sizes are applied
+     * to the model immediately, so neither a position change nor a repeated layout pass requires any work here.
+     */
     @Override
     protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
-        if (!wasLayout || changed) {
+        final int width = right - left;
+        final int height = bottom - top;
+        if (!mModel.isLaidOut() || width != mModel.getViewWidth() || height != mModel.getViewHeight()) {
             targetIsBeingTouched = false;
-            wasLayout = true;
-            final int width = right - left;
-            final int height = bottom - top;
-
-            updateContentAreaSize(width, height);
-            updateTouchableAreaYBounds();
-            updateYPixelPositionByProgress();
+            mActivePointerId = -1;
+            resetThumbTouches();
+            mModel.layout(width, height);
+            invalidateGeometryCaches();
         }
     }
 
+    /**
+     * The model re-lays itself out right away on padding and thumb size changes, so everything derived from
+     * its geometry is dropped here as well, not only in onLayout().
+     */
     private void updatePaddingInternal() {
-        paddingLeft = getPaddingLeft();
-        paddingTop = getPaddingTop();
-        paddingRight = getPaddingRight();
-        paddingBottom = getPaddingBottom();
-    }
-
-    private void updateContentAreaSize(int viewWidth, int viewHeight) {
-        contentAreaStartX = paddingLeft;
-        contentAreaStartY = paddingTop;
-        contentAreaWidth = viewWidth - paddingLeft - paddingRight;
-        if (contentAreaWidth < 0) contentAreaWidth = 0;
-        contentAreaHeight = viewHeight - paddingTop - paddingBottom;
-        if (contentAreaHeight < 0) contentAreaHeight = 0;
-        contentAreaCenterHorizontal = (float)(2*contentAreaStartX + contentAreaWidth) / 2f;
-
-        thumbPositionYTop = contentAreaStartY + mThumbSizeHalf;
-        thumbPositionYBot = contentAreaStartY + contentAreaHeight - mThumbSizeHalf;
-    }
-
-    private void updateTouchableAreaYBounds() {
-        if (mPreferredTouchableAreaWidth < mThumbSize) {
-            touchAreaStartX = contentAreaCenterHorizontal - mThumbSizeHalf;
-            touchAreaEndX = touchAreaStartX + mThumbSize;
-        } else {
-            touchAreaStartX = contentAreaCenterHorizontal - (float)mPreferredTouchableAreaWidth / 2f;
-            touchAreaEndX = touchAreaStartX + mPreferredTouchableAreaWidth;
-
-            // Check that touchable area not exceeds paddings
-            if (touchAreaStartX < contentAreaStartX) {
-                touchAreaStartX = contentAreaStartX;
-            }
-            if (touchAreaEndX > (contentAreaStartX + contentAreaWidth)) {
-                touchAreaEndX = contentAreaStartX + contentAreaWidth;
+        if (mModel != null) {
+            mModel.setPadding(getPaddingLeft(), getPaddingTop(), getPaddingRight(), getPaddingBottom());
+            invalidateGeometryCaches();
+            if (mModel.isLaidOut()) {
+                // A layout pass with the same size neither recalculates nor redraws anything
+                invalidateAll();
             }
         }
     }
 
+    private void invalidateGeometryCaches() {
+        mTicksValid = false;
+        mTrackCacheValid = false;
+        mThumbSpritesValid = false;
+        mPredictedPixelY = Float.NaN;
+    }
+
 
     @Override
     public boolean onTouchEvent(MotionEvent event) {
+        if (mMetrics != null) {
+            mMetrics.onInputEvent(event.getEventTime());
+        }
+        mTouchSampleTimeMs = event.getEventTime();
 
-        if (wasLayout) {
+        if (mMultiThumbMode) {
+            return (mModel.isLaidOut() && onMultiThumbTouchEvent(event)) || super.onTouchEvent(event);
+        }
+
+        if (mModel.isLaidOut()) {
             final int action = MotionEventCompat.getActionMasked(event);
-            final float x = event.getX();
-            final float y = event.getY();
             switch(action) {
                 case MotionEvent.ACTION_DOWN:
-                    if (!targetIsBeingTouched && isTouchValid(x, y)) {
-                        startTouchMode(y);
-                        super.invalidate();
-                        return true;
+                case MotionEvent.ACTION_POINTER_DOWN:
+                    // The thumb is owned by the first pointer which hits it. Other pointers are ignored.
+                    if (!targetIsBeingTouched) {
+                        final int pointerIndex = MotionEventCompat.getActionIndex(event);
+                        final float y = event.getY(pointerIndex);
+                        if (mModel.isTouchValid(event.getX(pointerIndex), y)) {
+                            mActivePointerId = event.getPointerId(pointerIndex);
+                            final float oldPixelY = mModel.getPixelYPosition();
+                            startTouchMode(y);
+                            mPredictor.reset();
+                            mPredictor.addSample(event.getEventTime(), y);
+                            invalidateTouchStateChange(oldPixelY, mModel.getPixelYPosition());
+                            notifyProgressChangedByUser();
+                            return true;
+                        }
                     }
                     break;
                 case MotionEvent.ACTION_MOVE:
                     if (targetIsBeingTouched) {
-                        updateThumbPositionInTouchMode(y);
-                        super.invalidate();
+                        final int pointerIndex = event.findPointerIndex(mActivePointerId);
+                        if (pointerIndex >= 0) {
+                            final float oldPixelY = getDrawnPixelY();
+                            if (mProcessHistoricalSamples) {
+                                processHistoricalSamples(event, pointerIndex);
+                            }
+                            updateThumbPositionInTouchMode(event.getY(pointerIndex));
+                            if (mTouchPredictionEnabled) {
+                                updatePredictedPosition(event, pointerIndex);
+                            }
+                            invalidateThumbMove(oldPixelY, getDrawnPixelY());
+                            notifyProgressChangedByUser();
+                        }
+                        return true;
+                    }
+                    break;
+                case MotionEvent.ACTION_POINTER_UP:
+                    if (targetIsBeingTouched) {
+                        if (event.getPointerId(MotionEventCompat.getActionIndex(event)) == mActivePointerId) {
+                            stopTouchMode();
+                        }
                         return true;
                     }
                     break;
                 case MotionEvent.ACTION_UP:
                 case MotionEvent.ACTION_CANCEL:
                     if (targetIsBeingTouched) {
-                        targetIsBeingTouched = false;
-                        super.invalidate();
+                        stopTouchMode();
                         return true;
                     }
                     break;
@@ -277,48 +439,241 @@ public class VerticalSeekBar extends View {
         return super.onTouchEvent(event);
     }
 
-    private boolean isTouchValid(float touchX, float touchY) {
-        if ((touchX >= touchAreaStartX) && (touchX < touchAreaEndX)) {
-            if ((touchY >= contentAreaStartY) && (touchY < contentAreaStartY + contentAreaHeight)) {
-                return true;
+    /**
+     * Folds intermediate positions batched by the system into a single ACTION_MOVE event into the model.
+     * Only the last position is drawn, but listeners in the {@link #DISPATCH_EVERY_SAMPLE} mode receive all of them.
+     */
+    private void processHistoricalSamples(MotionEvent event, int pointerIndex) {
+        final int historySize = event.getHistorySize();
+        final boolean notifyEachSample = (mDispatchMode == DISPATCH_EVERY_SAMPLE);
+        for (int h = 0; h < historySize; h++) {
+            updateThumbPositionInTouchMode(event.getHistoricalY(pointerIndex, h));
+            if (notifyEachSample) {
+                mTouchSampleTimeMs = event.getHistoricalEventTime(h);
+                notifyProgressChanged(true);
             }
         }
+        mTouchSampleTimeMs = event.getEventTime();
+    }
 
-        final float halfContentWidth = (float)contentAreaWidth / 2f;
-        float minY = mPixelYPosition - halfContentWidth;
-        if (minY < contentAreaStartY) minY = contentAreaStartY;
-        float maxY = mPixelYPosition + halfContentWidth;
-        if (maxY >= contentAreaStartY+contentAreaHeight) maxY = contentAreaStartY+contentAreaHeight;
-        if ((touchY >= minY) && (touchY < maxY)) {
-            if ((touchX >= contentAreaStartX) && (touchX < contentAreaStartX*contentAreaWidth)) {
-                return true;
+    /**
+     * Each pointer drags its own thumb - the nearest one to the point where it went down.
+     */
+    private boolean onMultiThumbTouchEvent(MotionEvent event) {
+        switch (MotionEventCompat.getActionMasked(event)) {
+            case MotionEvent.ACTION_DOWN:
+            case MotionEvent.ACTION_POINTER_DOWN: {
+                final int pointerIndex = MotionEventCompat.getActionIndex(event);
+                final int pointerId = event.getPointerId(pointerIndex);
+                final float y = event.getY(pointerIndex);
+                final int thumb = mThumbs.findNearest(y);
+                if (pointerId < MAX_POINTER_ID && thumb >= 0 && mThumbPointerId[thumb] < 0
+                        && mModel.isTouchValid(event.getX(pointerIndex), y, mThumbs.getPixelY(thumb))) {
+                    startThumbTouch(pointerId, thumb, y);
+                    return true;
+                }
+                return mTouchedThumbsCount > 0;
             }
+            case MotionEvent.ACTION_MOVE:
+                if (mTouchedThumbsCount > 0) {
+                    for (int i = 0, n = event.getPointerCount(); i < n; i++) {
+                        final int pointerId = event.getPointerId(i);
+                        if (pointerId < MAX_POINTER_ID && mPointerThumb[pointerId] >= 0) {
+                            moveTouchedThumb(event, i, mPointerThumb[pointerId]);
+                        }
+                    }
+                    return true;
+                }
+                break;
+            case MotionEvent.ACTION_POINTER_UP:
+                if (mTouchedThumbsCount > 0) {
+                    final int pointerId = event.getPointerId(MotionEventCompat.getActionIndex(event));
+                    if (pointerId < MAX_POINTER_ID && mPointerThumb[pointerId] >= 0) {
+                        releaseThumbTouch(pointerId);
+                    }
+                    return true;
+                }
+                break;
+            case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_CANCEL:
+                if (mTouchedThumbsCount > 0) {
+                    for (int pointerId = 0; pointerId < MAX_POINTER_ID; pointerId++) {
+                        if (mPointerThumb[pointerId] >= 0) {
+                            releaseThumbTouch(pointerId);
+                        }
+                    }
+                    return true;
+                }
+                break;
         }
-
         return false;
     }
 
+    private void startThumbTouch(int pointerId, int thumb, float pointerY) {
+        final boolean barColorChanged = (mTouchedThumbsCount == 0);
+        mPointerThumb[pointerId] = thumb;
+        mThumbPointerId[thumb] = pointerId;
+        mTouchedThumbsCount ++;
+
+        final float oldPixelY = mThumbs.getPixelY(thumb);
+        if (mThumbs.moveThumb(thumb, pointerY)) {
+            notifyThumbValueChangedByUser(thumb);
+        }
+        invalidateThumbTouchStateChange(oldPixelY, mThumbs.getPixelY(thumb), barColorChanged);
+    }
+
+    private void moveTouchedThumb(MotionEvent event, int pointerIndex, int thumb) {
+        final float oldValue = mThumbs.getValue(thumb);
+        final float oldPixelY = mThumbs.getPixelY(thumb);
+        final boolean notifyEachSample = (mDispatchMode == DISPATCH_EVERY_SAMPLE);
+        if (mProcessHistoricalSamples) {
+            for (int h = 0, historySize = event.getHistorySize(); h < historySize; h++) {
+                if (mThumbs.moveThumb(thumb, event.getHistoricalY(pointerIndex, h)) && notifyEachSample) {
+                    notifyThumbValueChanged(thumb, true);
+                }
+            }
+        }
+        final boolean changed = mThumbs.moveThumb(thumb, event.getY(pointerIndex));
+        invalidateThumbMove(oldPixelY, mThumbs.getPixelY(thumb));
+        if (notifyEachSample ? changed : (mThumbs.getValue(thumb) != oldValue)) {
+            notifyThumbValueChangedByUser(thumb);
+        }
+    }
+
+    private void releaseThumbTouch(int pointerId) {
+        dispatchPendingChanges();
+        final int thumb = mPointerThumb[pointerId];
+        mPointerThumb[pointerId] = -1;
+        mThumbPointerId[thumb] = -1;
+        mTouchedThumbsCount --;
+        final float pixelY = mThumbs.getPixelY(thumb);
+        invalidateThumbTouchStateChange(pixelY, pixelY, mTouchedThumbsCount == 0);
+    }
+
+    private void resetThumbTouches() {
+        Arrays.fill(mPointerThumb, -1);
+        Arrays.fill(mThumbPointerId, -1);
+        mTouchedThumbsCount = 0;
+    }
+
+    private void notifyThumbValueChanged(int thumb, boolean fromUser) {
+        if (mThumbListener != null) {
+            mThumbListener.onThumbValueChanged(this, thumb, mThumbs.getValue(thumb), fromUser);
+        }
+    }
+
+    /**
+     * Reports a change made by user's touch according to the dispatch mode.
+     */
+    private void notifyProgressChangedByUser() {
+        if (mDispatchMode == DISPATCH_EVERY_SAMPLE) {
+            notifyProgressChanged(true);
+        } else {
+            mProgressDispatchPending = true;
+            scheduleCoalescedDispatch();
+        }
+    }
+
+    private void notifyThumbValueChangedByUser(int thumb) {
+        if (mDispatchMode == DISPATCH_EVERY_SAMPLE) {
+            notifyThumbValueChanged(thumb, true);
+        } else {
+            mThumbDispatchPending[thumb] = true;
+            scheduleCoalescedDispatch();
+        }
+    }
+
+    private void scheduleCoalescedDispatch() {
+        if (getWindowToken() == null) {
+            // No frames are drawn, so there is nothing to wait for
+            dispatchPendingChanges();
+        } else if (!mCoalescedDispatchPosted) {
+            mCoalescedDispatchPosted = true;
+            ViewCompat.postOnAnimation(this, mDispatchCoalescedChanges);
+        }
+    }
+
+    /**
+     * Delivers user's changes held back in the {@link #DISPATCH_COALESCED} mode with the current values.
+     */
+    private void dispatchPendingChanges() {
+        if (mProgressDispatchPending) {
+            mProgressDispatchPending = false;
+            notifyProgressChanged(true);
+        }
+        for (int thumb = 0, n = mThumbs.getCount(); thumb < n; thumb++) {
+            if (mThumbDispatchPending[thumb]) {
+                mThumbDispatchPending[thumb] = false;
+                notifyThumbValueChanged(thumb, true);
+            }
+        }
+    }
+
+    private void notifyProgressChanged(boolean fromUser) {
+        final float progress = mModel.getProgress();
+        if (progress != mLastNotifiedProgress) {
+            mLastNotifiedProgress = progress;
+            if (mEventBuffer != null) {
+                mEventBuffer.offer(fromUser ? mTouchSampleTimeMs : SystemClock.uptimeMillis(), progress);
+            }
+            if (mProgressListener != null) {
+                mProgressListener.onProgressChanged(this, progress, fromUser);
+            }
+        }
+    }
+
     private void startTouchMode(final float pointerY) {
         if (targetIsBeingTouched) throw new IllegalStateException("This method can be called only when the View is not in touch mode");
 
+        // User's touch takes over immediately
+        cancelProgressAnimation();
+
         targetIsBeingTouched = true;
         updateThumbPositionInTouchMode(pointerY);
     }
 
+    private void stopTouchMode() {
+        dispatchPendingChanges();
+        targetIsBeingTouched = false;
+        mActivePointerId = -1;
+        final float drawnPixelY = getDrawnPixelY();
+        mPredictedPixelY = Float.NaN;
+        invalidateTouchStateChange(drawnPixelY, mModel.getPixelYPosition());
+    }
+
+    /**
+     * Feeds all samples of a move event (including historical ones) to the predictor and moves the drawn thumb
+     * to the position expected on the next frame. Progress keeps the real position.
+     */
+    private void updatePredictedPosition(MotionEvent event, int pointerIndex) {
+        for (int h = 0, historySize = event.getHistorySize(); h < historySize; h++) {
+            mPredictor.addSample(event.getHistoricalEventTime(h), event.getHistoricalY(pointerIndex, h));
+        }
+        mPredictor.addSample(event.getEventTime(), event.getY(pointerIndex));
+        final float predicted = mPredictor.predict(PREDICTION_LOOKAHEAD_MS);
+        // In step mode the drawn thumb stays on detents as well
+        mPredictedPixelY = (mModel.getStepSize() > 0)
+                ? mModel.getPixelForValue(mModel.getValueForPixel(predicted))
+                : mModel.clampPixelY(predicted);
+        schedulePredictionCheck();
+    }
+
+    private void schedulePredictionCheck() {
+        if (!mPredictionCheckPosted) {
+            mPredictionCheckPosted = true;
+            ViewCompat.postOnAnimation(this, mRetireStalePrediction);
+        }
+    }
+
+    private float getDrawnPixelY() {
+        return Float.isNaN(mPredictedPixelY) ? mModel.getPixelYPosition() : mPredictedPixelY;
+    }
+
     private void updateThumbPositionInTouchMode(final float pointerY) {
         if (!targetIsBeingTouched)
             throw new IllegalStateException("This method can be called only when the View is in touch mode");
 
-        if (pointerY < thumbPositionYTop) {
-            mPixelYPosition = thumbPositionYTop;
-        }  else if (pointerY > thumbPositionYBot) {
-            mPixelYPosition = thumbPositionYBot;
-        } else {
-            mPixelYPosition = pointerY;
-        }
-
-        final float pxProgress = thumbPositionYBot - mPixelYPosition;
-        mProgress = (mMax - mMin) * pxProgress / (thumbPositionYBot - thumbPositionYTop);
+        mModel.setThumbPixelPosition(pointerY);
     }
 
 
@@ -328,6 +683,28 @@ public class VerticalSeekBar extends View {
 
     @Override
     protected void onDraw(Canvas canvas) {
+        if (mMetrics == null) {
+            drawContent(canvas);
+        } else {
+            final long drawStartNanos = System.nanoTime();
+            drawContent(canvas);
+            mMetrics.onFrameDrawn(drawStartNanos, System.nanoTime(), SystemClock.uptimeMillis());
+        }
+    }
+
+    private void drawContent(Canvas canvas) {
+        final VerticalSeekBarModel m = mModel;
+        final int contentAreaStartX = m.getContentAreaStartX();
+        final int contentAreaStartY = m.getContentAreaStartY();
+        final int contentAreaWidth = m.getContentAreaWidth();
+        final int contentAreaHeight = m.getContentAreaHeight();
+        final float contentAreaCenterHorizontal = m.getContentAreaCenterHorizontal();
+        final float thumbPositionYTop = m.getThumbPositionYTop();
+        final float thumbPositionYBot = m.getThumbPositionYBot();
+        final float touchAreaStartX = m.getTouchAreaStartX();
+        final float touchAreaEndX = m.getTouchAreaEndX();
+        final float pixelYPosition = getDrawnPixelY();
+
         if (contentAreaWidth == 0 || contentAreaHeight == 0) return;
         if (thumbPositionYBot - thumbPositionYTop <= 0) return;
         canvas.save();
@@ -338,10 +715,28 @@ public class VerticalSeekBar extends View {
         }
         canvas.clipRect(contentAreaRect);
 
-        //--- Test drawing of content area ---
-        if (mTestShowContentArea) {
-            mPaintFill.setColor(mTestContentAreaColor);
-            canvas.drawColor(mTestContentAreaColor);
+        //--- Static layer - test content area and non-selected bar ---
+        if (mTrackCacheEnabled) {
+            if (!mTrackCacheValid) {
+                updateTrackCache();
+            }
+            canvas.drawBitmap(mTrackCache, contentAreaStartX, contentAreaStartY, null);
+        } else {
+            drawStaticTrack(canvas);
+        }
+
+        if (!mThumbSpritesValid) {
+            updateThumbSprites();
+        }
+        if (mMultiThumbMode) {
+            drawThumbs(canvas);
+            canvas.restore();
+            return;
+        }
+
+        //--- Level meter behind the selected bar ---
+        if (mLevelMeter != null) {
+            drawLevelMeter(canvas, mLevelMeter);
         }
 
         //--- Test drawing of the touchable area's borders ---
@@ -354,8 +749,8 @@ public class VerticalSeekBar extends View {
             }
 
             final float halfContentWidth = (float)contentAreaWidth / 2f;
-            int minY = Math.round(mPixelYPosition - halfContentWidth);
-            int maxY = Math.round(mPixelYPosition + halfContentWidth);
+            int minY = Math.round(pixelYPosition - halfContentWidth);
+            int maxY = Math.round(pixelYPosition + halfContentWidth);
 
             if (minY <= contentAreaStartY) {
                 drawingAreaPath.moveTo(contentAreaStartX, contentAreaStartY);
@@ -398,27 +793,257 @@ public class VerticalSeekBar extends View {
             mPaintStroke.setAntiAlias(true);
         }
 
+        //--- Draw selected bar ---
+        mPaintStroke.setColor(targetIsBeingTouched ? colorSelectedBarTouched : colorSelectedBar);
+        mPaintStroke.setStrokeWidth(mSelectedBarWidth);
+        canvas.drawLine(contentAreaCenterHorizontal, pixelYPosition, contentAreaCenterHorizontal, thumbPositionYBot, mPaintStroke);
+
+        //--- Draw thumb (with wrapper, if touched) as a pre-rendered sprite ---
+        final Bitmap sprite = targetIsBeingTouched ? mThumbSpriteTouched : mThumbSprite;
+        final float spriteHalf = (float) sprite.getWidth() / 2f;
+        canvas.drawBitmap(sprite, contentAreaCenterHorizontal - spriteHalf, pixelYPosition - spriteHalf, mPaintBitmap);
+
+        canvas.restore();
+    }
+
+    /**
+     * Multi-thumb mode. The selected bar spans between the lowest and the highest thumbs. Touched thumbs
+     * are drawn after the others, so their wrappers are on top.
+     */
+    private void drawThumbs(Canvas canvas) {
+        final MultiThumbModel t = mThumbs;
+        final int n = t.getCount();
+        final float centerX = mModel.getContentAreaCenterHorizontal();
+
+        mPaintStroke.setColor((mTouchedThumbsCount > 0) ? colorSelectedBarTouched : colorSelectedBar);
+        mPaintStroke.setStrokeWidth(mSelectedBarWidth);
+        canvas.drawLine(centerX, t.getPixelY(n - 1), centerX, getSelectedBarBottom(), mPaintStroke);
+
+        final float spriteHalf = (float) mThumbSprite.getWidth() / 2f;
+        for (int i = 0; i < n; i++) {
+            if (mThumbPointerId[i] < 0) {
+                canvas.drawBitmap(mThumbSprite, centerX - spriteHalf, t.getPixelY(i) - spriteHalf, mPaintBitmap);
+            }
+        }
+        if (mTouchedThumbsCount > 0) {
+            final float touchedHalf = (float) mThumbSpriteTouched.getWidth() / 2f;
+            for (int i = 0; i < n; i++) {
+                if (mThumbPointerId[i] >= 0) {
+                    canvas.drawBitmap(mThumbSpriteTouched, centerX - touchedHalf, t.getPixelY(i) - touchedHalf, mPaintBitmap);
+                }
+            }
+        }
+    }
+
+    /**
+     * A single thumb in the multi-thumb mode selects down to the bottom, as in the single thumb mode.
+     */
+    private float getSelectedBarBottom() {
+        return (mThumbs.getCount() > 1) ? mThumbs.getPixelY(0) : mModel.getThumbPositionYBot();
+    }
+
+    /**
+     * Peak and RMS levels are drawn as bars of the thumb width from the bottom of the track, the peak hold as a line.
+     */
+    private void drawLevelMeter(Canvas canvas, LevelMeter meter) {
+        final float centerX = mModel.getContentAreaCenterHorizontal();
+        final float half = mModel.getThumbSizeHalf();
+        final float bottom = mModel.getThumbPositionYBot();
+        if (meter.getPeak() > 0) {
+            mPaintFill.setColor(mLevelPeakColor);
+            canvas.drawRect(centerX - half, levelToPixel(meter.getPeak()), centerX + half, bottom, mPaintFill);
+        }
+        if (meter.getRms() > 0) {
+            mPaintFill.setColor(mLevelRmsColor);
+            canvas.drawRect(centerX - half, levelToPixel(meter.getRms()), centerX + half, bottom, mPaintFill);
+        }
+        if (meter.getPeakHold() > 0) {
+            final float y = levelToPixel(meter.getPeakHold());
+            mPaintFill.setColor(mLevelHoldColor);
+            canvas.drawRect(centerX - half, y - LEVEL_HOLD_LINE_WIDTH, centerX + half, y, mPaintFill);
+        }
+    }
+
+    private float levelToPixel(float level) {
+        final float bottom = mModel.getThumbPositionYBot();
+        return bottom - level * (bottom - mModel.getThumbPositionYTop());
+    }
+
+    /**
+     * Draws the parts which change on layout or color change only. Coordinates are the View's ones.
+     */
+    private void drawStaticTrack(Canvas canvas) {
+        //--- Test drawing of content area ---
+        if (mTestShowContentArea) {
+            canvas.drawColor(mTestContentAreaColor);
+        }
+
+        //--- Draw tick marks of the step mode with a single call ---
+        if (hasTicks()) {
+            if (!mTicksValid) {
+                updateTickGeometry();
+            }
+            mPaintStroke.setColor(mTickColor);
+            mPaintStroke.setStrokeWidth(0);
+            canvas.drawLines(mTickLines, 0, mTickLinesLength, mPaintStroke);
+        }
+
         //--- Draw non-selected bar ---
+        final float centerX = mModel.getContentAreaCenterHorizontal();
         mPaintStroke.setColor(colorNotSelectedBar);
         mPaintStroke.setStrokeWidth(mNotSelectedBarWidth);
-        canvas.drawLine(contentAreaCenterHorizontal, thumbPositionYTop, contentAreaCenterHorizontal, thumbPositionYBot, mPaintStroke);
+        canvas.drawLine(centerX, mModel.getThumbPositionYTop(), centerX, mModel.getThumbPositionYBot(), mPaintStroke);
+    }
 
-        //--- Draw selected bar ---
-        mPaintStroke.setColor(targetIsBeingTouched ? colorSelectedBarTouched : colorSelectedBar);
-        mPaintStroke.setStrokeWidth(mSelectedBarWidth);
-        canvas.drawLine(contentAreaCenterHorizontal, mPixelYPosition, contentAreaCenterHorizontal, thumbPositionYBot, mPaintStroke);
+    private boolean hasTicks() {
+        return mModel.getStepSize() > 0 && (mMinorTickLength > 0 || mMajorTickLength > 0);
+    }
 
-        //--- Draw thumb wrapper ---
-        if (targetIsBeingTouched) {
+    /**
+     * Fills the tick lines buffer - one horizontal line across the bar per step. Every N-th tick is major.
+     * The buffer is reallocated only if the number of ticks grows.
+     */
+    private void updateTickGeometry() {
+        final VerticalSeekBarModel m = mModel;
+        final int nTicks = m.getStepCount() + 1;
+        if (mTickLines.length < 4 * nTicks) {
+            mTickLines = new float[4 * nTicks];
+        }
+        final float centerX = m.getContentAreaCenterHorizontal();
+        final float minor = (float) mMinorTickLength / 2f;
+        final float major = (float) mMajorTickLength / 2f;
+        final float min = m.getMin();
+        final float max = m.getMax();
+        final float step = m.getStepSize();
+        int j = 0;
+        for (int i = 0; i < nTicks; i++) {
+            final float value = (i == nTicks - 1) ? max : min + i * step;
+            final float halfLength = (mMajorTickEvery > 0 && i % mMajorTickEvery == 0) ? major : minor;
+            if (halfLength <= 0) continue;
+            final float y = m.getPixelForValue(value);
+            mTickLines[j++] = centerX - halfLength;
+            mTickLines[j++] = y;
+            mTickLines[j++] = centerX + halfLength;
+            mTickLines[j++] = y;
+        }
+        mTickLinesLength = j;
+        mTicksValid = true;
+    }
+
+    /**
+     * Tick geometry depends on the range, the scale and the step.
+     */
+    private void invalidateTicks() {
+        if (hasTicks()) {
+            mTicksValid = false;
+            mTrackCacheValid = false;
+            invalidateAll();
+        }
+    }
+
+    /**
+     * Renders the static layer into a bitmap of the content area size. The bitmap is reused until the size changes.
+     */
+    private void updateTrackCache() {
+        final int w = mModel.getContentAreaWidth();
+        final int h = mModel.getContentAreaHeight();
+        if (mTrackCache == null || mTrackCache.getWidth() != w || mTrackCache.getHeight() != h) {
+            releaseTrackCache();
+            mTrackCache = Bitmap.createBitmap(w, h, Bitmap.Config.ARGB_8888);
+            if (mTrackCacheCanvas == null) {
+                mTrackCacheCanvas = new Canvas(mTrackCache);
+            } else {
+                mTrackCacheCanvas.setBitmap(mTrackCache);
+            }
+        } else {
+            mTrackCache.eraseColor(Color.TRANSPARENT);
+        }
+        mTrackCacheCanvas.save();
+        mTrackCacheCanvas.translate(-mModel.getContentAreaStartX(), -mModel.getContentAreaStartY());
+        drawStaticTrack(mTrackCacheCanvas);
+        mTrackCacheCanvas.restore();
+        mTrackCacheValid = true;
+    }
+
+    private void updateThumbSprites() {
+        final float thumbRadius = mModel.getThumbSizeHalf();
+        final float wrapperRadius = (float) mModel.getContentAreaWidth() / 2f;
+        mThumbSprite = renderThumbSprite(mThumbSprite, thumbRadius, false);
+        mThumbSpriteTouched = renderThumbSprite(mThumbSpriteTouched, Math.max(thumbRadius, wrapperRadius), true);
+        mThumbSpritesValid = true;
+    }
+
+    /**
+     * Renders the thumb centered in a square bitmap. The old bitmap is reused if it has the same size.
+     *
+     * @param spriteRadius half of the sprite size without the 1px anti-aliasing margin
+     */
+    private Bitmap renderThumbSprite(@Nullable Bitmap sprite, float spriteRadius, boolean touched) {
+        final int size = (int) Math.ceil(2f * spriteRadius) + 2;
+        if (sprite == null || sprite.getWidth() != size) {
+            if (sprite != null) sprite.recycle();
+            sprite = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+        } else {
+            sprite.eraseColor(Color.TRANSPARENT);
+        }
+        if (mThumbSpriteCanvas == null) {
+            mThumbSpriteCanvas = new Canvas(sprite);
+        } else {
+            mThumbSpriteCanvas.setBitmap(sprite);
+        }
+
+        final float center = (float) size / 2f;
+        if (touched) {
             mPaintFill.setColor(colorThumbTouchedWrapper);
-            canvas.drawCircle(contentAreaCenterHorizontal, mPixelYPosition, contentAreaWidth/2, mPaintFill);
+            mThumbSpriteCanvas.drawCircle(center, center, (float) mModel.getContentAreaWidth() / 2f, mPaintFill);
         }
+        if (mThumbDrawable != null) {
+            final float thumbHalf = mModel.getThumbSizeHalf();
+            mThumbDrawable.setState(touched ? STATE_PRESSED : STATE_NORMAL);
+            mThumbDrawable.setBounds(Math.round(center - thumbHalf), Math.round(center - thumbHalf), Math.round(center + thumbHalf), Math.round(center + thumbHalf));
+            mThumbDrawable.draw(mThumbSpriteCanvas);
+        } else {
+            mPaintFill.setColor(touched ? colorThumbTouched : colorThumb);
+            mThumbSpriteCanvas.drawCircle(center, center, mModel.getThumbSizeHalf(), mPaintFill);
+        }
+        return sprite;
+    }
 
-        //--- Draw thumb ---
-        mPaintFill.setColor(targetIsBeingTouched ? colorThumbTouched : colorThumb);
-        canvas.drawCircle(contentAreaCenterHorizontal, mPixelYPosition, mThumbSizeHalf, mPaintFill);
+    private void releaseThumbSprites() {
+        if (mThumbSprite != null) {
+            mThumbSprite.recycle();
+            mThumbSprite = null;
+        }
+        if (mThumbSpriteTouched != null) {
+            mThumbSpriteTouched.recycle();
+            mThumbSpriteTouched = null;
+        }
+        mThumbSpritesValid = false;
+    }
 
-        canvas.restore();
+    private void releaseTrackCache() {
+        if (mTrackCache != null) {
+            mTrackCache.recycle();
+            mTrackCache = null;
+        }
+        mTrackCacheValid = false;
+    }
+
+    /**
+     * The static parts of the track (non-selected bar and test content area) are rendered once into a bitmap,
+     * so only the selected bar and the thumb are drawn per frame. Enabled by default.
+     * Disable it to save memory of one content-area-sized bitmap.
+     */
+    public void setTrackCacheEnabled(boolean enabled) {
+        mTrackCacheEnabled = enabled;
+        if (!enabled) {
+            releaseTrackCache();
+        }
+        invalidate();
+    }
+
+    public boolean isTrackCacheEnabled() {
+        return mTrackCacheEnabled;
     }
 
 
@@ -426,83 +1051,607 @@ public class VerticalSeekBar extends View {
     /**********************************  Setters for parameters  **********************************/
     /**********************************************************************************************/
     public void setElementsSize(int thumbSize, int notSelectedBarWidth, int selectedBarWidth) {
-        mThumbSize = thumbSize;
-        mThumbSizeHalf = (float) thumbSize / 2f;
+        final boolean minimumSizeChanged = (thumbSize != mModel.getThumbSize());
+        mModel.setThumbSize(thumbSize);
         mNotSelectedBarWidth = notSelectedBarWidth;
         mSelectedBarWidth = selectedBarWidth;
         validateElementsSize();
+        invalidateGeometryCaches();
+        if (minimumSizeChanged) {
+            requestLayout();
+        }
+        invalidate();
     }
 
     public void setBarColors(int colorNotSelected, int colorSelected, int colorSelectedTouched) {
         this.colorNotSelectedBar = colorNotSelected;
         this.colorSelectedBar = colorSelected;
         this.colorSelectedBarTouched = colorSelectedTouched;
+        mTrackCacheValid = false;
+        invalidate();
     }
 
     public void setThumbColors(int colorThumb, int colorThumbTouched, int colorThumbTouchedWrapper) {
         this.colorThumb = colorThumb;
         this.colorThumbTouched = colorThumbTouched;
         this.colorThumbTouchedWrapper = colorThumbTouchedWrapper;
+        mThumbSpritesValid = false;
+        invalidate();
+    }
+
+    /**
+     * Sets a custom thumb drawable, which replaces the default circle. It is drawn with the thumb size bounds
+     * in the normal and the pressed states. The touched wrapper is still drawn beneath it.
+     *
+     * @param thumb null to draw the default circle thumb
+     */
+    public void setThumbDrawable(@Nullable Drawable thumb) {
+        mThumbDrawable = thumb;
+        mThumbSpritesValid = false;
+        invalidate();
+    }
+
+    @Nullable
+    public Drawable getThumbDrawable() {
+        return mThumbDrawable;
     }
 
     public void setPreferredTouchableAreaWidth(int width) {
-        mPreferredTouchableAreaWidth = width;
-        updateTouchableAreaYBounds();
+        mModel.setPreferredTouchableAreaWidth(width);
     }
 
     private void validateElementsSize() {
-        if (mSelectedBarWidth > mThumbSize)
+        if (mSelectedBarWidth > mModel.getThumbSize())
             throw new IllegalArgumentException("Selected bar width must not exceed thumb size");
         if (mNotSelectedBarWidth > mSelectedBarWidth)
             throw new IllegalArgumentException("Not selected bar width must not exceed selected bar width");
     }
 
 
+    /**
+     * Sets progress value. Must be called from the UI thread. Use {@link #publishProgress(float)} from other threads.
+     */
     public void setProgress(float progress) {
-        if (progress > mMax) {
-            mProgress = mMax;
-        } else if (progress < mMin) {
-            mProgress = mMin;
-        } else {
-            mProgress = progress;
+        cancelProgressAnimation();
+        setProgressInternal(progress);
+    }
+
+    private void setProgressInternal(float progress) {
+        final float oldPixelY = mModel.getPixelYPosition();
+        mModel.setProgress(progress);
+        invalidateThumbMove(oldPixelY, mModel.getPixelYPosition());
+        notifyProgressChanged(false);
+    }
+
+    public float getProgress() {
+        return mModel.getProgress();
+    }
+
+    @Override
+    public View getView() {
+        return this;
+    }
+
+    /**
+     * Smoothly animates progress from the current value to the new one. All seek bars share one frame callback,
+     * so no objects are allocated per animated frame. Calling this method during an animation retargets it
+     * from the current value. User's touch or {@link #setProgress(float)} cancels the animation.
+     *
+     * @param interpolator null means linear interpolation
+     */
+    public void animateProgressTo(float progress, long durationMs, @Nullable Interpolator interpolator) {
+        // Validated before any state is changed, so a rejected animation leaves the seek bar idle
+        if (durationMs < 0) throw new IllegalArgumentException("Duration must not be negative");
+        mProgressAnimating = true;
+        ProgressAnimationEngine.getInstance().start(mAnimationTarget, 0, mModel.getProgress(), progress, durationMs, interpolator);
+    }
+
+    public void cancelProgressAnimation() {
+        if (mProgressAnimating) {
+            ProgressAnimationEngine.getInstance().cancel(mAnimationTarget, 0);
+        }
+    }
+
+    public boolean isProgressAnimating() {
+        return mProgressAnimating;
+    }
+
+    /**
+     * Applies a resolved style - sizes, colors, step mode and debug flags - to this seek bar. Allows to
+     * reconfigure a recycled instance without resolving attributes again. Nothing is allocated except
+     * a copy of the style's thumb drawable, progress and range are kept.
+     */
+    public void bindConfig(VerticalSeekBarStyle style) {
+        final boolean minimumSizeChanged = (style.thumbSize != mModel.getThumbSize());
+        mModel.setThumbSize(style.thumbSize);
+        mNotSelectedBarWidth = style.notSelectedBarWidth;
+        mSelectedBarWidth = style.selectedBarWidth;
+        mModel.setPreferredTouchableAreaWidth(style.preferredTouchableAreaWidth);
+
+        colorNotSelectedBar = style.colorNotSelectedBar;
+        colorSelectedBar = style.colorSelectedBar;
+        colorSelectedBarTouched = style.colorSelectedBarTouched;
+        colorThumb = style.colorThumb;
+        colorThumbTouched = style.colorThumbTouched;
+        colorThumbTouchedWrapper = style.colorThumbTouchedWrapper;
+        mThumbDrawable = style.newThumbDrawable(getResources());
+
+        mModel.setStepSize(style.stepSize);
+        mMajorTickEvery = style.majorTickEvery;
+        mTickColor = style.tickColor;
+        mMinorTickLength = style.minorTickLength;
+        mMajorTickLength = style.majorTickLength;
+
+        mTestShowContentArea = style.testShowContentArea;
+        mTestContentAreaColor = style.testContentAreaColor;
+        mTestShowToucableArea = style.testShowTouchableArea;
+        mTestToucableAreaColor = style.testTouchableAreaColor;
+
+        invalidateGeometryCaches();
+        if (minimumSizeChanged) {
+            requestLayout();
         }
         invalidate();
     }
 
-    public float getProgress() {
-        return mProgress;
+    /**
+     * Enables collection of draw and touch latency metrics. Use {@link MetricsRecorder#snapshot()} to read them.
+     *
+     * @param recorder null to disable metrics. A disabled recorder costs nothing.
+     */
+    public void setMetricsRecorder(@Nullable MetricsRecorder recorder) {
+        mMetrics = recorder;
     }
 
-    public void setRange(float min, float max) {
-        if (min >= max) throw new IllegalArgumentException("Min value must be less then Max value");
-        mMin = min;
-        mMax = max;
-        if (mProgress < mMin) {
-            mProgress = mMin;
-        } else if (mProgress > mMax) {
-            mProgress = mMax;
+    @Nullable
+    public MetricsRecorder getMetricsRecorder() {
+        return mMetrics;
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        mAttached = true;
+        updateLevelMeterRegistration();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        mAttached = false;
+        updateLevelMeterRegistration();
+        if (mPredictionCheckPosted) {
+            removeCallbacks(mRetireStalePrediction);
+            mPredictionCheckPosted = false;
+        }
+        if (mCoalescedDispatchPosted) {
+            removeCallbacks(mDispatchCoalescedChanges);
+            mCoalescedDispatchPosted = false;
         }
+        dispatchPendingChanges();
+        cancelProgressAnimation();
+        releaseDrawingCaches();
+        super.onDetachedFromWindow();
+    }
+
+    private void releaseDrawingCaches() {
+        releaseTrackCache();
+        releaseThumbSprites();
+    }
+
+    /**
+     * Shows a live signal level meter behind the selected bar. An audio thread publishes levels with
+     * {@link LevelMeter#publish(float, float)}, which never locks or allocates. The seek bar takes them once
+     * per frame, applies peak hold and decay with the frame time and redraws only the band between
+     * the old and the new levels. Meters of all seek bars share one frame callback, which stops while
+     * no meter has anything to show.
+     *
+     * @param meter null to remove the meter
+     */
+    public void setLevelMeter(@Nullable LevelMeter meter) {
+        mLevelMeter = meter;
+        if (meter != null) {
+            meter.reset();
+        }
+        updateLevelMeterRegistration();
         invalidate();
     }
 
+    @Nullable
+    public LevelMeter getLevelMeter() {
+        return mLevelMeter;
+    }
+
+    public void setLevelMeterColors(int rmsColor, int peakColor, int peakHoldColor) {
+        mLevelRmsColor = rmsColor;
+        mLevelPeakColor = peakColor;
+        mLevelHoldColor = peakHoldColor;
+        invalidate();
+    }
+
+    private void updateLevelMeterRegistration() {
+        final LevelMeterTicker ticker = LevelMeterTicker.getInstance();
+        if (mLevelMeter != null && mAttached) {
+            ticker.add(mLevelMeterClient);
+            ticker.wakeUp();
+        } else {
+            ticker.remove(mLevelMeterClient);
+        }
+    }
+
+    /**
+     * @return true if the meter is still active
+     */
+    private boolean onLevelMeterFrame(long frameTimeMs) {
+        final LevelMeter meter = mLevelMeter;
+        if (meter == null) return false;
+        if (meter.isIdle()) return false;
+        final float oldPeak = meter.getPeak();
+        final float oldRms = meter.getRms();
+        final float oldHold = meter.getPeakHold();
+        // Levels still advance while the bar is hidden, but nothing is redrawn
+        if (meter.update(frameTimeMs) && mModel.isLaidOut() && isShown()) {
+            final float lowest = Math.min(Math.min(Math.min(oldPeak, oldRms), oldHold),
+                    Math.min(Math.min(meter.getPeak(), meter.getRms()), meter.getPeakHold()));
+            final float highest = Math.max(Math.max(Math.max(oldPeak, oldRms), oldHold),
+                    Math.max(Math.max(meter.getPeak(), meter.getRms()), meter.getPeakHold()));
+            invalidateLevelMeterBand(levelToPixel(highest) - LEVEL_HOLD_LINE_WIDTH, levelToPixel(lowest));
+        }
+        return !meter.isIdle();
+    }
+
+    /**
+     * Only the thumb-wide column of the meter between the old and the new levels is redrawn.
+     */
+    private void invalidateLevelMeterBand(float top, float bottom) {
+        final float centerX = mModel.getContentAreaCenterHorizontal();
+        final float half = mModel.getThumbSizeHalf();
+        final int l = (int) Math.floor(centerX - half);
+        final int t = (int) Math.floor(top) - 1;
+        final int r = (int) Math.ceil(centerX + half);
+        final int b = (int) Math.ceil(bottom) + 1;
+        invalidateRect(l, t, r, b);
+    }
+
+    /**
+     * Thread-safe version of {@link #setProgress(float)} for high-rate producers like audio or telemetry threads.
+     * The value is handed over lock-free and applied on the UI thread at most once per display frame.
+     * Intermediate values published within one frame are dropped. The caller is never blocked.
+     * Published values are ignored while the user is touching the thumb. While the View is detached
+     * the latest value is applied right away, so it is shown once the View is attached again.
+     */
+    public void publishProgress(float progress) {
+        mPublishedProgressBits.set(Float.floatToRawIntBits(progress));
+        if (mPublishedProgressPending.compareAndSet(false, true)) {
+            mMainHandler.post(mSchedulePublishedProgress);
+        }
+    }
+
+    public void setRange(float min, float max) {
+        final float oldPixelY = mModel.getPixelYPosition();
+        mModel.setRange(min, max);
+        revalidateThumbs();
+        invalidateTicks();
+        invalidateThumbMove(oldPixelY, mModel.getPixelYPosition());
+        notifyProgressChanged(false);
+    }
+
     public float getMin() {
-        return mMin;
+        return mModel.getMin();
     }
 
     public float getMax() {
-        return mMax;
+        return mModel.getMax();
+    }
+
+    /**
+     * Sets mapping between the thumb position and progress, e.g. {@link ValueScale#decibel()} for audio gain.
+     * The default is {@link ValueScale#LINEAR}.
+     */
+    public void setValueScale(ValueScale scale) {
+        final float oldPixelY = mModel.getPixelYPosition();
+        mModel.setScale(scale);
+        revalidateThumbs();
+        invalidateTicks();
+        invalidateThumbMove(oldPixelY, mModel.getPixelYPosition());
+    }
+
+    public ValueScale getValueScale() {
+        return mModel.getScale();
+    }
+
+    /**
+     * Enables step (detent) mode. Progress snaps to min + N*step both on touch and on {@link #setProgress(float)},
+     * and listeners are notified only when the snapped value changes.
+     *
+     * @param step step size, 0 for continuous values
+     */
+    public void setStepSize(float step) {
+        final float oldPixelY = mModel.getPixelYPosition();
+        mModel.setStepSize(step);
+        revalidateThumbs();
+        mTicksValid = false;
+        mTrackCacheValid = false;
+        invalidateAll();
+        invalidateThumbMove(oldPixelY, mModel.getPixelYPosition());
+        notifyProgressChanged(false);
+    }
+
+    public float getStepSize() {
+        return mModel.getStepSize();
+    }
+
+    /**
+     * Configures tick marks of the step mode. Ticks are drawn across the bar at each step.
+     *
+     * @param majorTickEvery every N-th tick from min is major, 0 for no major ticks
+     * @param minorTickLength length of minor ticks in pixels, 0 to hide them
+     * @param majorTickLength length of major ticks in pixels
+     */
+    public void setTicks(int majorTickEvery, int minorTickLength, int majorTickLength, int color) {
+        if (majorTickEvery < 0) throw new IllegalArgumentException("Major tick interval must not be negative");
+        mMajorTickEvery = majorTickEvery;
+        mMinorTickLength = minorTickLength;
+        mMajorTickLength = majorTickLength;
+        mTickColor = color;
+        mTicksValid = false;
+        mTrackCacheValid = false;
+        invalidateAll();
+    }
+
+    /**
+     * Switches the seek bar to the multi-thumb mode - e.g. two thumbs for low/high range selection or
+     * N envelope handles on one track. Values are sorted ascending and thumb indices follow this order.
+     * Thumbs can't cross each other, so an index never changes while a thumb is dragged. Each pointer drags
+     * its own thumb. The single progress value and its listener are not used in this mode.
+     *
+     * Range, scale and step changes constrain thumb values silently.
+     *
+     * @param values null to return to the single thumb mode
+     */
+    public void setThumbValues(@Nullable float[] values) {
+        if (values != null && values.length == 0) throw new IllegalArgumentException("At least one thumb value is required");
+        cancelProgressAnimation();
+        targetIsBeingTouched = false;
+        mActivePointerId = -1;
+        // Changes of the replaced thumbs are not reported any more
+        mProgressDispatchPending = false;
+        Arrays.fill(mThumbDispatchPending, false);
+        if (values != null) {
+            if (mThumbPointerId.length < values.length) {
+                mThumbPointerId = new int[values.length];
+                mThumbDispatchPending = new boolean[values.length];
+            }
+            mThumbs.setValues(values);
+        }
+        resetThumbTouches();
+        mMultiThumbMode = (values != null);
+        invalidateAll();
+    }
+
+    public boolean isMultiThumbMode() {
+        return mMultiThumbMode;
+    }
+
+    /**
+     * @return number of thumbs in the multi-thumb mode, 0 in the single thumb mode
+     */
+    public int getThumbCount() {
+        return mMultiThumbMode ? mThumbs.getCount() : 0;
+    }
+
+    public float getThumbValue(int index) {
+        checkMultiThumbMode();
+        return mThumbs.getValue(index);
+    }
+
+    /**
+     * Copies values of all thumbs in ascending order into the array of at least {@link #getThumbCount()} length.
+     */
+    public void getThumbValues(float[] dst) {
+        checkMultiThumbMode();
+        mThumbs.getValues(dst);
+    }
+
+    /**
+     * Sets a thumb's value. It is limited by the range and the neighbour thumbs.
+     */
+    public void setThumbValue(int index, float value) {
+        checkMultiThumbMode();
+        final float oldPixelY = mThumbs.getPixelY(index);
+        if (mThumbs.setValue(index, value)) {
+            invalidateThumbMove(oldPixelY, mThumbs.getPixelY(index));
+            notifyThumbValueChanged(index, false);
+        }
+    }
+
+    /**
+     * Sets the minimum distance between neighbour thumbs in value units. 0 allows thumbs to stack.
+     */
+    public void setThumbMinDistance(float minDistance) {
+        mThumbs.setMinDistance(minDistance);
+        if (mMultiThumbMode) {
+            invalidateAll();
+        }
+    }
+
+    public float getThumbMinDistance() {
+        return mThumbs.getMinDistance();
+    }
+
+    public void setOnThumbValueChangeListener(@Nullable OnThumbValueChangeListener listener) {
+        mThumbListener = listener;
+    }
+
+    private void checkMultiThumbMode() {
+        if (!mMultiThumbMode) throw new IllegalStateException("The seek bar is not in the multi-thumb mode");
+    }
+
+    private void revalidateThumbs() {
+        if (mMultiThumbMode) {
+            mThumbs.revalidate();
+            invalidateAll();
+        }
+    }
+
+    public void setOnProgressChangeListener(@Nullable OnProgressChangeListener listener) {
+        mProgressListener = listener;
+    }
+
+    /**
+     * Streams progress changes into a lock-free buffer, which a worker thread drains in batches with
+     * {@link ProgressEventBuffer#drain(long[], float[])}. Each event is a pair of time in the
+     * {@code SystemClock.uptimeMillis()} time base (event time of the touch sample for user's changes)
+     * and the new progress. The UI thread is never blocked by a slow consumer, and nothing is allocated per event.
+     * Events follow the listener dispatch mode and are written on the UI thread, which is the buffer's only producer.
+     *
+     * @param buffer null to stop streaming
+     */
+    public void setProgressEventBuffer(@Nullable ProgressEventBuffer buffer) {
+        mEventBuffer = buffer;
+    }
+
+    @Nullable
+    public ProgressEventBuffer getProgressEventBuffer() {
+        return mEventBuffer;
+    }
+
+    /**
+     * Enables touch prediction. While dragging, the thumb and the selected bar are drawn at the position
+     * extrapolated from the velocity of recent touch samples to the next frame, so they don't trail the finger.
+     * Progress and listeners always get the real position. Prediction stops when the touch ends, and the thumb
+     * returns to the real position when no touch sample has come for a frame.
+     */
+    public void setTouchPredictionEnabled(boolean enabled) {
+        mTouchPredictionEnabled = enabled;
+        if (!enabled && !Float.isNaN(mPredictedPixelY)) {
+            final float drawnPixelY = mPredictedPixelY;
+            mPredictedPixelY = Float.NaN;
+            invalidateThumbMove(drawnPixelY, mModel.getPixelYPosition());
+        }
+    }
+
+    public boolean isTouchPredictionEnabled() {
+        return mTouchPredictionEnabled;
+    }
+
+    /**
+     * Enables processing of historical touch samples which the system batches into each ACTION_MOVE event.
+     * Fast drags are tracked more precisely, while the View is still redrawn once per event.
+     */
+    public void setProcessHistoricalSamples(boolean process) {
+        mProcessHistoricalSamples = process;
+    }
+
+    public boolean isProcessHistoricalSamples() {
+        return mProcessHistoricalSamples;
+    }
+
+    /**
+     * @param mode either {@link #DISPATCH_EVERY_SAMPLE} or {@link #DISPATCH_COALESCED}
+     */
+    public void setListenerDispatchMode(int mode) {
+        if (mode != DISPATCH_EVERY_SAMPLE && mode != DISPATCH_COALESCED)
+            throw new IllegalArgumentException("Unknown dispatch mode - "+mode);
+        dispatchPendingChanges();
+        mDispatchMode = mode;
+    }
+
+    public int getListenerDispatchMode() {
+        return mDispatchMode;
     }
 
 
     @Override
     public void invalidate() {
-        updateYPixelPositionByProgress();
+        // Can be called by the super constructor before the model is created
+        if (mModel != null) {
+            mModel.updateYPixelPositionByProgress();
+        }
+        onInvalidated(0, 0, getWidth(), getHeight());
+        super.invalidate();
+    }
+
+    /**
+     * Invalidates the whole View without recomputing the thumb position, unlike {@link #invalidate()}.
+     */
+    private void invalidateAll() {
+        onInvalidated(0, 0, getWidth(), getHeight());
         super.invalidate();
     }
 
-    private void updateYPixelPositionByProgress() {
-        if (wasLayout) {
-            mPixelYPosition = thumbPositionYBot - (thumbPositionYBot - thumbPositionYTop) * (mProgress) / (mMax - mMin);
+    private void invalidateRect(int l, int t, int r, int b) {
+        onInvalidated(l, t, r, b);
+        super.invalidate(l, t, r, b);
+    }
+
+    /**
+     * Every invalidation made by this View passes through here, so the metrics recorder accounts all dirty areas.
+     * Package-private for the draw regression tests.
+     */
+    void onInvalidated(int left, int top, int right, int bottom) {
+        if (mMetrics != null) {
+            mMetrics.onInvalidate(right - left, bottom - top);
         }
     }
+
+    /**
+     * Invalidates only the horizontal band of the content area which is affected by moving the thumb
+     * from one Y position to another - the thumb itself, the touched wrapper around it and
+     * the part of the selected bar between the two positions.
+     */
+    private void invalidateThumbMove(float fromPixelY, float toPixelY) {
+        if (!mModel.isLaidOut()) {
+            invalidateAll();
+            return;
+        }
+        if (fromPixelY == toPixelY) return;     // E.g. the thumb stays on the same detent
+        final float radius = getThumbDirtyRadius();
+        invalidateContentBand(Math.min(fromPixelY, toPixelY) - radius, Math.max(fromPixelY, toPixelY) + radius);
+    }
+
+    /**
+     * Touch state toggle changes color of the whole selected bar below the thumb, so the band
+     * is extended down to the bottom of the content area.
+     */
+    private void invalidateTouchStateChange(float fromPixelY, float toPixelY) {
+        if (!mModel.isLaidOut()) {
+            invalidateAll();
+            return;
+        }
+        invalidateContentBand(Math.min(fromPixelY, toPixelY) - getThumbDirtyRadius(), mModel.getContentAreaEndY());
+    }
+
+    /**
+     * In the multi-thumb mode a touch state toggle changes color of the selected bar between the outer thumbs.
+     * Otherwise only the touched thumb's wrapper changes.
+     */
+    private void invalidateThumbTouchStateChange(float fromPixelY, float toPixelY, boolean barColorChanged) {
+        if (!barColorChanged) {
+            final float radius = getThumbDirtyRadius();
+            invalidateContentBand(Math.min(fromPixelY, toPixelY) - radius, Math.max(fromPixelY, toPixelY) + radius);
+        } else if (!mModel.isLaidOut()) {
+            invalidateAll();
+        } else {
+            final float radius = getThumbDirtyRadius();
+            final float top = Math.min(Math.min(fromPixelY, toPixelY), mThumbs.getPixelY(mThumbs.getCount() - 1));
+            final float bottom = Math.max(Math.max(fromPixelY, toPixelY), getSelectedBarBottom());
+            invalidateContentBand(top - radius, bottom + radius);
+        }
+    }
+
+    private float getThumbDirtyRadius() {
+        // The touched wrapper and the test touchable area outline both span half of the content width
+        final float wrapperRadius = (float)mModel.getContentAreaWidth() / 2f;
+        final float thumbRadius = mModel.getThumbSizeHalf();
+        return (wrapperRadius > thumbRadius) ? wrapperRadius : thumbRadius;
+    }
+
+    private void invalidateContentBand(float top, float bottom) {
+        int t = (int) Math.floor(top) - 1;
+        int b = (int) Math.ceil(bottom) + 1;
+        if (t < mModel.getContentAreaStartY()) t = mModel.getContentAreaStartY();
+        if (b > mModel.getContentAreaEndY()) b = mModel.getContentAreaEndY();
+        if (t >= b) return;
+        invalidateRect(mModel.getContentAreaStartX(), t, mModel.getContentAreaEndX(), b);
+    }
 }
@@ -0,0 +1,742 @@
+package com.alperez.widget;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.Nullable;
+import android.support.v4.view.MotionEventCompat;
+import android.support.v4.view.ViewCompat;
+import android.util.AttributeSet;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.animation.Interpolator;
+
+import com.alperez.widget.core.VerticalSeekBarModel;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * A bank of vertical faders which are rendered by a single View. It looks and behaves like a row of
+ * {@link VerticalSeekBar} instances, but per-channel state is kept in primitive arrays, all channels are drawn
+ * in one pass with batched draw calls and touches are routed to a channel by column index.
+ *
+ * All channels share one {@link VerticalSeekBarModel}, which holds the geometry of a single column.
+ */
+public class VerticalSeekBarBank extends View {
+
+    /**
+     * Listener is notified about every change of a channel's progress value.
+     */
+    public interface OnChannelProgressChangeListener {
+        /**
+         * @param bank the View which progress was changed
+         * @param channel index of the channel
+         * @param progress new progress value
+         * @param fromUser true if the change was initiated by user's touch
+         */
+        void onChannelProgressChanged(VerticalSeekBarBank bank, int channel, float progress, boolean fromUser);
+    }
+
+    private static final int DEFAULT_CHANNEL_COUNT = 8;
+
+    // Pointer IDs are small integers reused by the system. Pointers with larger IDs are ignored.
+    private static final int MAX_POINTER_ID = 32;
+
+    // Geometry of a single column. Column's X offset is added on drawing and hit-testing.
+    private final VerticalSeekBarModel mColumnModel = new VerticalSeekBarModel();
+
+    // Sizes of content items
+    private int mNotSelectedBarWidth = 4;
+    private int mSelectedBarWidth = 10;
+
+    // Colors of elements
+    private int colorNotSelectedBar;
+    private int colorSelectedBar;
+    private int colorSelectedBarTouched;
+    private int colorThumb;
+    private int colorThumbTouched;
+    private int colorThumbTouchedWrapper;
+
+    // Cached values of paddings
+    private int paddingLeft;
+    private int paddingTop;
+    private int paddingRight;
+    private int paddingBottom;
+
+    //----  Per-channel state  ----
+    private int mChannelCount;
+    private float[] mProgress;
+    private float[] mMin;
+    private float[] mMax;
+    private float[] mPixelYPosition;
+    private int[] mChannelPointerId;    // -1 if the channel is not touched
+
+    //----  Column geometry  ----
+    private float mColumnWidth;
+    private float mInverseColumnWidth;
+
+    //----  Touch state. Channel owned by each pointer, -1 if none  ----
+    private final int[] mPointerChannel = new int[MAX_POINTER_ID];
+    private int mActivePointersCount;
+
+    //----  Batched drawing buffers. Allocated on channel count change only  ----
+    private float[] mNotSelectedBarLines;
+    private float[] mSelectedBarLines;
+    private float[] mThumbPoints;
+
+    //----  Progress animations, driven by the shared ProgressAnimationEngine  ----
+    private int mAnimatingChannelsCount;
+    private boolean[] mChannelAnimating;
+    private final ProgressAnimationEngine.Target mAnimationTarget = new ProgressAnimationEngine.Target() {
+        @Override
+        public void onAnimatedProgress(int channel, float progress) {
+            setProgressInternal(channel, progress);
+        }
+
+        @Override
+        public void onProgressAnimationEnded(int channel) {
+            if (mChannelAnimating[channel]) {
+                mChannelAnimating[channel] = false;
+                mAnimatingChannelsCount --;
+            }
+        }
+    };
+
+    //----  Progress published from background threads. Only the latest value of each channel is kept  ----
+    private AtomicIntegerArray mPublishedProgressBits;
+    private AtomicIntegerArray mPublishedProgressPending;
+    private final AtomicBoolean mPublishedApplyScheduled = new AtomicBoolean();
+    // View.post() from a foreign thread goes into a thread-local queue while the View is detached and may never run
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable mSchedulePublishedProgress = new Runnable() {
+        @Override
+        public void run() {
+            if (getWindowToken() != null) {
+                ViewCompat.postOnAnimation(VerticalSeekBarBank.this, mApplyPublishedProgress);
+            } else {
+                // No frames are drawn, so there is nothing to wait for
+                mApplyPublishedProgress.run();
+            }
+        }
+    };
+    private final Runnable mApplyPublishedProgress = new Runnable() {
+        @Override
+        public void run() {
+            // The flags must be cleared before reading the values, so values published meanwhile are not lost
+            mPublishedApplyScheduled.set(false);
+            for (int i = 0; i < mChannelCount; i++) {
+                if (mPublishedProgressPending.getAndSet(i, 0) != 0 && mChannelPointerId[i] < 0) {
+                    setProgress(i, Float.intBitsToFloat(mPublishedProgressBits.get(i)));
+                }
+            }
+        }
+    };
+
+    private OnChannelProgressChangeListener mProgressListener;
+
+    private boolean wasLayout;
+    private int mLayoutWidth;
+    private int mLayoutHeight;
+
+    private Paint mPaintStroke;
+    private Paint mPaintFill;
+    private Paint mPaintThumb;
+
+    public VerticalSeekBarBank(Context context) {
+        super(context);
+        init(DEFAULT_CHANNEL_COUNT);
+    }
+
+    public VerticalSeekBarBank(Context context, @Nullable AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    public VerticalSeekBarBank(Context context, @Nullable AttributeSet attrs, int defStyle) {
+        super(context, attrs, defStyle);
+        init(extractArguments(attrs, defStyle));
+    }
+
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    public VerticalSeekBarBank(Context context, @Nullable AttributeSet attrs, int defStyleAttr, int defStyleRes) {
+        super(context, attrs, defStyleAttr, defStyleRes);
+        init(extractArguments(attrs, defStyleAttr));
+    }
+
+    /**
+     * @return number of channels
+     */
+    private int extractArguments(@Nullable AttributeSet attrs, int defStyleAttr) {
+        if (attrs == null) return DEFAULT_CHANNEL_COUNT;
+
+        // Attributes shared with VerticalSeekBar are resolved once per style
+        final VerticalSeekBarStyle style = VerticalSeekBarStyle.obtain(getContext(), attrs, defStyleAttr);
+        mColumnModel.setThumbSize(style.thumbSize);
+        mNotSelectedBarWidth = style.notSelectedBarWidth;
+        mSelectedBarWidth = style.selectedBarWidth;
+        mColumnModel.setPreferredTouchableAreaWidth(style.preferredTouchableAreaWidth);
+
+        colorNotSelectedBar = style.colorNotSelectedBar;
+        colorSelectedBar = style.colorSelectedBar;
+        colorSelectedBarTouched = style.colorSelectedBarTouched;
+        colorThumb = style.colorThumb;
+        colorThumbTouched = style.colorThumbTouched;
+        colorThumbTouchedWrapper = style.colorThumbTouchedWrapper;
+
+        return VerticalSeekBarStyle.obtainChannelCount(getContext(), attrs, defStyleAttr, DEFAULT_CHANNEL_COUNT);
+    }
+
+    private void init(int channelCount) {
+        for (int i = 0; i < MAX_POINTER_ID; i++) {
+            mPointerChannel[i] = -1;
+        }
+        mPaintStroke = new Paint();
+        mPaintStroke.setAntiAlias(true);
+        mPaintStroke.setStyle(Paint.Style.STROKE);
+        mPaintFill = new Paint();
+        mPaintFill.setAntiAlias(true);
+        mPaintFill.setStyle(Paint.Style.FILL);
+        // Thumbs are drawn as round points in a single drawPoints() call
+        mPaintThumb = new Paint();
+        mPaintThumb.setAntiAlias(true);
+        mPaintThumb.setStyle(Paint.Style.STROKE);
+        mPaintThumb.setStrokeCap(Paint.Cap.ROUND);
+        validateElementsSize();
+        updatePaddingInternal();
+        setChannelCount(channelCount);
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        final int minW = mChannelCount * mColumnModel.getThumbSize() + paddingLeft + paddingRight;
+        final int minH = mColumnModel.getMinimumHeight();
+        setMeasuredDimension(VerticalSeekBar.getActualViewSize(minW, widthMeasureSpec), VerticalSeekBar.getActualViewSize(minH, heightMeasureSpec));
+    }
+
+    /*********************************  Layout-related  *******************************************/
+
+    @Override
+    public void setPadding(int left, int top, int right, int bottom) {
+        super.setPadding(left, top, right, bottom);
+        updatePaddingInternal();
+        if (wasLayout) {
+            updateColumnsGeometry(mLayoutWidth, mLayoutHeight);
+        }
+        invalidateAll();
+    }
+
+    /**
+     * Geometry is recalculated only if the size has changed. Other geometry inputs are applied immediately
+     * by their setters, so a position change or a repeated layout pass requires no work here.
+     */
+    @Override
+    protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+        final int width = right - left;
+        final int height = bottom - top;
+        if (!wasLayout || width != mLayoutWidth || height != mLayoutHeight) {
+            wasLayout = true;
+            mLayoutWidth = width;
+            mLayoutHeight = height;
+            cancelTouch();
+            updateColumnsGeometry(width, height);
+        }
+    }
+
+    private void updatePaddingInternal() {
+        paddingLeft = getPaddingLeft();
+        paddingTop = getPaddingTop();
+        paddingRight = getPaddingRight();
+        paddingBottom = getPaddingBottom();
+        // Column model has no horizontal paddings. Its X coordinates are relative to the column start.
+        // Can be called by the super constructor before the model is created.
+        if (mColumnModel != null) {
+            mColumnModel.setPadding(0, paddingTop, 0, paddingBottom);
+        }
+    }
+
+    private void updateColumnsGeometry(int viewWidth, int viewHeight) {
+        int contentWidth = viewWidth - paddingLeft - paddingRight;
+        if (contentWidth < 0) contentWidth = 0;
+        mColumnWidth = (mChannelCount > 0) ? (float) contentWidth / mChannelCount : 0;
+        mInverseColumnWidth = (mColumnWidth > 0) ? 1f / mColumnWidth : 0;
+
+        mColumnModel.layout((int) mColumnWidth, viewHeight);
+
+        final float centerX = mColumnModel.getContentAreaCenterHorizontal();
+        final float yTop = mColumnModel.getThumbPositionYTop();
+        final float yBot = mColumnModel.getThumbPositionYBot();
+        for (int i = 0, j = 0; i < mChannelCount; i++, j += 4) {
+            final float x = getColumnStartX(i) + centerX;
+            mNotSelectedBarLines[j] = x;
+            mNotSelectedBarLines[j + 1] = yTop;
+            mNotSelectedBarLines[j + 2] = x;
+            mNotSelectedBarLines[j + 3] = yBot;
+            mPixelYPosition[i] = mColumnModel.valueToPixel(mProgress[i], mMin[i], mMax[i]);
+        }
+    }
+
+    private float getColumnStartX(int channel) {
+        return paddingLeft + channel * mColumnWidth;
+    }
+
+    /**
+     * Package-private for tests.
+     *
+     * @return channel index for the X coordinate or -1 if it is outside of all columns
+     */
+    int getChannelAt(float x) {
+        final float localX = x - paddingLeft;
+        if (localX < 0) return -1;
+        final int channel = (int) (localX * mInverseColumnWidth);
+        return (channel < mChannelCount) ? channel : -1;
+    }
+
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (wasLayout && mChannelCount > 0) {
+            final int action = MotionEventCompat.getActionMasked(event);
+            switch (action) {
+                case MotionEvent.ACTION_DOWN:
+                case MotionEvent.ACTION_POINTER_DOWN:
+                    if (startPointer(event, MotionEventCompat.getActionIndex(event))) {
+                        return true;
+                    }
+                    break;
+                case MotionEvent.ACTION_MOVE:
+                    if (mActivePointersCount > 0) {
+                        final int pointerCount = event.getPointerCount();
+                        for (int index = 0; index < pointerCount; index++) {
+                            final int pointerId = event.getPointerId(index);
+                            if (pointerId < MAX_POINTER_ID && mPointerChannel[pointerId] >= 0) {
+                                moveChannelThumb(mPointerChannel[pointerId], event.getY(index));
+                            }
+                        }
+                        return true;
+                    }
+                    break;
+                case MotionEvent.ACTION_POINTER_UP:
+                    if (mActivePointersCount > 0) {
+                        releasePointer(event.getPointerId(MotionEventCompat.getActionIndex(event)));
+                        return true;
+                    }
+                    break;
+                case MotionEvent.ACTION_UP:
+                case MotionEvent.ACTION_CANCEL:
+                    if (mActivePointersCount > 0) {
+                        cancelTouch();
+                        return true;
+                    }
+                    break;
+            }
+        }
+        return super.onTouchEvent(event);
+    }
+
+    /**
+     * Binds a new pointer to the channel under it, if that channel is not already owned by another pointer.
+     *
+     * @return true if the pointer has captured a channel
+     */
+    private boolean startPointer(MotionEvent event, int pointerIndex) {
+        final int pointerId = event.getPointerId(pointerIndex);
+        if (pointerId >= MAX_POINTER_ID) return false;
+
+        final float x = event.getX(pointerIndex);
+        final float y = event.getY(pointerIndex);
+        final int channel = getChannelAt(x);
+        if (channel < 0 || mChannelPointerId[channel] >= 0) return false;
+        if (!mColumnModel.isTouchValid(x - getColumnStartX(channel), y, mPixelYPosition[channel])) return false;
+
+        // User's touch takes over immediately
+        cancelProgressAnimation(channel);
+
+        mPointerChannel[pointerId] = channel;
+        mChannelPointerId[channel] = pointerId;
+        mActivePointersCount ++;
+        final float oldPixelY = mPixelYPosition[channel];
+        moveChannelThumb(channel, y);
+        invalidateChannelTouchStateChange(channel, oldPixelY, mPixelYPosition[channel]);
+        return true;
+    }
+
+    private void releasePointer(int pointerId) {
+        if (pointerId >= MAX_POINTER_ID) return;
+        final int channel = mPointerChannel[pointerId];
+        if (channel >= 0) {
+            mPointerChannel[pointerId] = -1;
+            mChannelPointerId[channel] = -1;
+            mActivePointersCount --;
+            invalidateChannelTouchStateChange(channel, mPixelYPosition[channel], mPixelYPosition[channel]);
+        }
+    }
+
+    private void moveChannelThumb(int channel, float pointerY) {
+        final float pixelY = mColumnModel.clampPixelY(pointerY);
+        final float oldPixelY = mPixelYPosition[channel];
+        final float progress = mColumnModel.pixelToValue(pixelY, mMin[channel], mMax[channel]);
+        if (pixelY == oldPixelY && progress == mProgress[channel]) return;
+        mPixelYPosition[channel] = pixelY;
+        invalidateChannelMove(channel, oldPixelY, pixelY);
+        if (progress != mProgress[channel]) {
+            mProgress[channel] = progress;
+            if (mProgressListener != null) {
+                mProgressListener.onChannelProgressChanged(this, channel, progress, true);
+            }
+        }
+    }
+
+    private void cancelTouch() {
+        for (int pointerId = 0; (pointerId < MAX_POINTER_ID) && (mActivePointersCount > 0); pointerId++) {
+            releasePointer(pointerId);
+        }
+    }
+
+    private void invalidateAll() {
+        onInvalidated(0, 0, getWidth(), getHeight());
+        super.invalidate();
+    }
+
+    private void invalidateRect(int l, int t, int r, int b) {
+        onInvalidated(l, t, r, b);
+        super.invalidate(l, t, r, b);
+    }
+
+    /**
+     * Every invalidation made by this View passes through here. Package-private for tests.
+     */
+    void onInvalidated(int left, int top, int right, int bottom) {
+    }
+
+    /**
+     * Invalidates only the band of one column which is affected by moving its thumb from one Y position
+     * to another - the thumb with the touched wrapper around it and the part of the selected bar between them.
+     */
+    private void invalidateChannelMove(int channel, float fromPixelY, float toPixelY) {
+        if (!wasLayout) {
+            invalidateAll();
+            return;
+        }
+        if (fromPixelY == toPixelY) return;
+        final float radius = getThumbDirtyRadius();
+        invalidateChannelBand(channel, Math.min(fromPixelY, toPixelY) - radius, Math.max(fromPixelY, toPixelY) + radius);
+    }
+
+    /**
+     * Touch state toggle changes color of the whole selected bar below the thumb, so the band
+     * is extended down to the bottom of the column.
+     */
+    private void invalidateChannelTouchStateChange(int channel, float fromPixelY, float toPixelY) {
+        if (!wasLayout) {
+            invalidateAll();
+            return;
+        }
+        invalidateChannelBand(channel, Math.min(fromPixelY, toPixelY) - getThumbDirtyRadius(), mColumnModel.getContentAreaEndY());
+    }
+
+    private float getThumbDirtyRadius() {
+        // Thumbs are round points of the thumb size, the touched wrapper spans the column width
+        final float wrapperRadius = mColumnWidth / 2f;
+        final float thumbRadius = mColumnModel.getThumbSizeHalf();
+        return (wrapperRadius > thumbRadius) ? wrapperRadius : thumbRadius;
+    }
+
+    private void invalidateChannelBand(int channel, float top, float bottom) {
+        int t = (int) Math.floor(top) - 1;
+        int b = (int) Math.ceil(bottom) + 1;
+        if (t < mColumnModel.getContentAreaStartY()) t = mColumnModel.getContentAreaStartY();
+        if (b > mColumnModel.getContentAreaEndY()) b = mColumnModel.getContentAreaEndY();
+        if (t >= b) return;
+        final float startX = getColumnStartX(channel);
+        invalidateRect((int) Math.floor(startX), t, (int) Math.ceil(startX + mColumnWidth), b);
+    }
+
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        final VerticalSeekBarModel m = mColumnModel;
+        if (mChannelCount == 0 || m.getContentAreaWidth() == 0 || m.getContentAreaHeight() == 0) return;
+        if (m.getThumbPositionYBot() - m.getThumbPositionYTop() <= 0) return;
+
+        canvas.save();
+        canvas.clipRect(paddingLeft, paddingTop, getWidth() - paddingRight, getHeight() - paddingBottom);
+
+        //--- Draw non-selected bars. Coordinates are static between layouts ---
+        mPaintStroke.setColor(colorNotSelectedBar);
+        mPaintStroke.setStrokeWidth(mNotSelectedBarWidth);
+        canvas.drawLines(mNotSelectedBarLines, 0, 4 * mChannelCount, mPaintStroke);
+
+        // Not touched channels are packed from the beginning of the buffers, touched ones - from the end.
+        final float centerX = m.getContentAreaCenterHorizontal();
+        final float yBot = m.getThumbPositionYBot();
+        int nNormal = 0;
+        int nTouched = 0;
+        for (int i = 0; i < mChannelCount; i++) {
+            final float x = getColumnStartX(i) + centerX;
+            final float y = mPixelYPosition[i];
+            final int slot = (mChannelPointerId[i] >= 0) ? (mChannelCount - 1 - nTouched++) : nNormal++;
+            final int j = 4 * slot;
+            mSelectedBarLines[j] = x;
+            mSelectedBarLines[j + 1] = y;
+            mSelectedBarLines[j + 2] = x;
+            mSelectedBarLines[j + 3] = yBot;
+            mThumbPoints[2 * slot] = x;
+            mThumbPoints[2 * slot + 1] = y;
+        }
+        final int touchedOffset = mChannelCount - nTouched;
+
+        //--- Draw selected bars ---
+        mPaintStroke.setStrokeWidth(mSelectedBarWidth);
+        if (nNormal > 0) {
+            mPaintStroke.setColor(colorSelectedBar);
+            canvas.drawLines(mSelectedBarLines, 0, 4 * nNormal, mPaintStroke);
+        }
+        if (nTouched > 0) {
+            mPaintStroke.setColor(colorSelectedBarTouched);
+            canvas.drawLines(mSelectedBarLines, 4 * touchedOffset, 4 * nTouched, mPaintStroke);
+
+            //--- Draw thumb wrappers ---
+            mPaintFill.setColor(colorThumbTouchedWrapper);
+            final float wrapperRadius = mColumnWidth / 2f;
+            for (int slot = touchedOffset; slot < mChannelCount; slot++) {
+                canvas.drawCircle(mThumbPoints[2 * slot], mThumbPoints[2 * slot + 1], wrapperRadius, mPaintFill);
+            }
+        }
+
+        //--- Draw thumbs ---
+        mPaintThumb.setStrokeWidth(m.getThumbSize());
+        if (nNormal > 0) {
+            mPaintThumb.setColor(colorThumb);
+            canvas.drawPoints(mThumbPoints, 0, 2 * nNormal, mPaintThumb);
+        }
+        if (nTouched > 0) {
+            mPaintThumb.setColor(colorThumbTouched);
+            canvas.drawPoints(mThumbPoints, 2 * touchedOffset, 2 * nTouched, mPaintThumb);
+        }
+
+        canvas.restore();
+    }
+
+
+    /**********************************************************************************************/
+    /**********************************  Setters for parameters  **********************************/
+    /**********************************************************************************************/
+
+    /**
+     * Changes number of channels. All channels get default range 0..100 and progress 50.
+     * This is the only method which allocates per-channel storage. It must not be called while
+     * background producers use {@link #publishProgress(int, float)}.
+     */
+    public void setChannelCount(int channelCount) {
+        if (channelCount < 0) throw new IllegalArgumentException("Channel count must not be negative");
+        cancelTouch();
+        cancelAllProgressAnimations();
+        mChannelCount = channelCount;
+        mProgress = new float[channelCount];
+        mMin = new float[channelCount];
+        mMax = new float[channelCount];
+        mPixelYPosition = new float[channelCount];
+        mChannelPointerId = new int[channelCount];
+        mChannelAnimating = new boolean[channelCount];
+        mNotSelectedBarLines = new float[4 * channelCount];
+        mSelectedBarLines = new float[4 * channelCount];
+        mThumbPoints = new float[2 * channelCount];
+        mPublishedProgressBits = new AtomicIntegerArray(channelCount);
+        mPublishedProgressPending = new AtomicIntegerArray(channelCount);
+        for (int i = 0; i < channelCount; i++) {
+            mMin[i] = 0;
+            mMax[i] = 100f;
+            mProgress[i] = 50f;
+            mChannelPointerId[i] = -1;
+        }
+        if (wasLayout) {
+            updateColumnsGeometry(mLayoutWidth, mLayoutHeight);
+        }
+        // Minimum width depends on the number of channels
+        requestLayout();
+        invalidateAll();
+    }
+
+    public int getChannelCount() {
+        return mChannelCount;
+    }
+
+    public void setElementsSize(int thumbSize, int notSelectedBarWidth, int selectedBarWidth) {
+        final boolean minimumSizeChanged = (thumbSize != mColumnModel.getThumbSize());
+        mColumnModel.setThumbSize(thumbSize);
+        mNotSelectedBarWidth = notSelectedBarWidth;
+        mSelectedBarWidth = selectedBarWidth;
+        validateElementsSize();
+        if (wasLayout) {
+            updateColumnsGeometry(mLayoutWidth, mLayoutHeight);
+        }
+        if (minimumSizeChanged) {
+            requestLayout();
+        }
+        invalidateAll();
+    }
+
+    public void setBarColors(int colorNotSelected, int colorSelected, int colorSelectedTouched) {
+        this.colorNotSelectedBar = colorNotSelected;
+        this.colorSelectedBar = colorSelected;
+        this.colorSelectedBarTouched = colorSelectedTouched;
+        invalidateAll();
+    }
+
+    public void setThumbColors(int colorThumb, int colorThumbTouched, int colorThumbTouchedWrapper) {
+        this.colorThumb = colorThumb;
+        this.colorThumbTouched = colorThumbTouched;
+        this.colorThumbTouchedWrapper = colorThumbTouchedWrapper;
+        invalidateAll();
+    }
+
+    public void setPreferredTouchableAreaWidth(int width) {
+        mColumnModel.setPreferredTouchableAreaWidth(width);
+    }
+
+    private void validateElementsSize() {
+        if (mSelectedBarWidth > mColumnModel.getThumbSize())
+            throw new IllegalArgumentException("Selected bar width must not exceed thumb size");
+        if (mNotSelectedBarWidth > mSelectedBarWidth)
+            throw new IllegalArgumentException("Not selected bar width must not exceed selected bar width");
+    }
+
+    public void setOnChannelProgressChangeListener(@Nullable OnChannelProgressChangeListener listener) {
+        mProgressListener = listener;
+    }
+
+
+    public void setProgress(int channel, float progress) {
+        cancelProgressAnimation(channel);
+        setProgressInternal(channel, progress);
+    }
+
+    private void setProgressInternal(int channel, float progress) {
+        if (progress > mMax[channel]) {
+            progress = mMax[channel];
+        } else if (progress < mMin[channel]) {
+            progress = mMin[channel];
+        }
+        if (progress != mProgress[channel]) {
+            applyProgress(channel, progress, false);
+        }
+    }
+
+    public float getProgress(int channel) {
+        return mProgress[channel];
+    }
+
+    /**
+     * Smoothly animates progress of one channel. See {@link VerticalSeekBar#animateProgressTo(float, long, Interpolator)}.
+     *
+     * @param interpolator null means linear interpolation
+     */
+    public void animateProgressTo(int channel, float progress, long durationMs, @Nullable Interpolator interpolator) {
+        // Validated before any state is changed, so a rejected animation leaves the channel idle
+        if (channel < 0 || channel >= mChannelCount) throw new IndexOutOfBoundsException("Channel "+channel+" is out of range [0, "+mChannelCount+")");
+        if (durationMs < 0) throw new IllegalArgumentException("Duration must not be negative");
+        if (!mChannelAnimating[channel]) {
+            mChannelAnimating[channel] = true;
+            mAnimatingChannelsCount ++;
+        }
+        ProgressAnimationEngine.getInstance().start(mAnimationTarget, channel, mProgress[channel], progress, durationMs, interpolator);
+    }
+
+    /**
+     * Animates all channels at once, e.g. for a scene recall.
+     *
+     * @param values target values, one per channel
+     * @param interpolator null means linear interpolation
+     */
+    public void animateAllProgressTo(float[] values, long durationMs, @Nullable Interpolator interpolator) {
+        if (values.length < mChannelCount) throw new IllegalArgumentException("One value per channel is required");
+        for (int i = 0; i < mChannelCount; i++) {
+            animateProgressTo(i, values[i], durationMs, interpolator);
+        }
+    }
+
+    public void cancelProgressAnimation(int channel) {
+        if (mChannelAnimating[channel]) {
+            ProgressAnimationEngine.getInstance().cancel(mAnimationTarget, channel);
+        }
+    }
+
+    public void cancelAllProgressAnimations() {
+        if (mAnimatingChannelsCount > 0) {
+            ProgressAnimationEngine.getInstance().cancelAll(mAnimationTarget);
+        }
+    }
+
+    public boolean isProgressAnimating(int channel) {
+        return mChannelAnimating[channel];
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        cancelAllProgressAnimations();
+        super.onDetachedFromWindow();
+    }
+
+    /**
+     * Thread-safe version of {@link #setProgress(int, float)} for high-rate producers. Values are handed over
+     * lock-free and applied on the UI thread at most once per display frame for all channels together.
+     * Intermediate values are dropped. The caller is never blocked. Published values are ignored
+     * for channels which are being touched by the user. While the View is detached the latest values are applied
+     * right away, so they are shown once the View is attached again.
+     */
+    public void publishProgress(int channel, float progress) {
+        mPublishedProgressBits.set(channel, Float.floatToRawIntBits(progress));
+        mPublishedProgressPending.set(channel, 1);
+        if (mPublishedApplyScheduled.compareAndSet(false, true)) {
+            mMainHandler.post(mSchedulePublishedProgress);
+        }
+    }
+
+    public void setRange(int channel, float min, float max) {
+        if (min >= max) throw new IllegalArgumentException("Min value must be less then Max value");
+        mMin[channel] = min;
+        mMax[channel] = max;
+        float progress = mProgress[channel];
+        if (progress < min) {
+            progress = min;
+        } else if (progress > max) {
+            progress = max;
+        }
+        // Pixel position depends on the range even if progress value was not changed
+        applyProgress(channel, progress, false);
+    }
+
+    /**
+     * Sets the same range for all channels.
+     */
+    public void setRange(float min, float max) {
+        for (int i = 0; i < mChannelCount; i++) {
+            setRange(i, min, max);
+        }
+    }
+
+    public float getMin(int channel) {
+        return mMin[channel];
+    }
+
+    public float getMax(int channel) {
+        return mMax[channel];
+    }
+
+    private void applyProgress(int channel, float progress, boolean fromUser) {
+        final float oldProgress = mProgress[channel];
+        mProgress[channel] = progress;
+        if (wasLayout) {
+            final float oldPixelY = mPixelYPosition[channel];
+            mPixelYPosition[channel] = mColumnModel.valueToPixel(progress, mMin[channel], mMax[channel]);
+            invalidateChannelMove(channel, oldPixelY, mPixelYPosition[channel]);
+        }
+        if (progress != oldProgress && mProgressListener != null) {
+            mProgressListener.onChannelProgressChanged(this, channel, progress, fromUser);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.alperez.widget;
+
+import android.view.View;
+
+import com.alperez.widget.core.ValueScale;
+
+/**
+ * Common API of {@link VerticalSeekBar} and {@link VerticalSeekBarTextureView}. Allows to use the render thread
+ * variant where it is supported and the plain one elsewhere, see {@link VerticalSeekBarFactory}.
+ * All methods except {@link #publishProgress(float)} must be called from the UI thread.
+ */
+public interface VerticalSeekBarControl {
+
+    /**
+     * @return the seek bar itself, to be added to a layout
+     */
+    View getView();
+
+    void setProgress(float progress);
+
+    float getProgress();
+
+    /**
+     * Sets progress from any thread without blocking the caller. Values published while the user
+     * is touching the thumb are ignored.
+     */
+    void publishProgress(float progress);
+
+    void setRange(float min, float max);
+
+    float getMin();
+
+    float getMax();
+
+    void setValueScale(ValueScale scale);
+
+    ValueScale getValueScale();
+
+    void bindConfig(VerticalSeekBarStyle style);
+}
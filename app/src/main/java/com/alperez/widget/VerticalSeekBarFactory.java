@@ -0,0 +1,39 @@
+package com.alperez.widget;
+
+import android.content.Context;
+import android.os.Build;
+
+/**
+ * Creates seek bars in code where {@link VerticalSeekBarTextureView} is preferred but the app runs below
+ * API 14, which has no {@link android.view.TextureView}. Loading the TextureView variant there fails with
+ * {@link NoClassDefFoundError}, so it must not be referenced directly on such devices - neither in code nor
+ * in layouts (use a layout-v14 resource folder for it).
+ */
+public final class VerticalSeekBarFactory {
+
+    private VerticalSeekBarFactory() {
+    }
+
+    /**
+     * @return true if {@link VerticalSeekBarTextureView} can be used on this device
+     */
+    public static boolean isTextureViewSupported() {
+        return isTextureViewSupported(Build.VERSION.SDK_INT);
+    }
+
+    /**
+     * Creates a {@link VerticalSeekBarTextureView} if it is supported, a {@link VerticalSeekBar} otherwise.
+     * Both look the same, the fallback draws on the UI thread.
+     */
+    public static VerticalSeekBarControl create(Context context) {
+        return create(context, Build.VERSION.SDK_INT);
+    }
+
+    static boolean isTextureViewSupported(int sdkInt) {
+        return sdkInt >= Build.VERSION_CODES.ICE_CREAM_SANDWICH;
+    }
+
+    static VerticalSeekBarControl create(Context context, int sdkInt) {
+        return isTextureViewSupported(sdkInt) ? new VerticalSeekBarTextureView(context) : new VerticalSeekBar(context);
+    }
+}
@@ -0,0 +1,281 @@
+package com.alperez.widget;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+import android.support.annotation.Nullable;
+
+import com.alperez.widget.core.ValueScale;
+import com.alperez.widget.core.VerticalSeekBarModel;
+
+/**
+ * Draws a single-thumb seek bar without a View - the model with the geometry, the paints, the tick lines and
+ * the thumb sprites. Used by {@link VerticalSeekBarTextureView} on the render thread. The output is the same
+ * as the one of {@link VerticalSeekBar} in the single thumb mode without a level meter and the debug overlays.
+ *
+ * This class is not thread-safe. It is used by one thread at a time.
+ */
+final class VerticalSeekBarRenderer {
+    private static final int[] STATE_NORMAL = new int[0];
+    private static final int[] STATE_PRESSED = new int[] {android.R.attr.state_pressed};
+
+    private final VerticalSeekBarModel mModel = new VerticalSeekBarModel();
+
+    private int mNotSelectedBarWidth;
+    private int mSelectedBarWidth;
+    private int mColorNotSelectedBar;
+    private int mColorSelectedBar;
+    private int mColorSelectedBarTouched;
+    private int mColorThumb;
+    private int mColorThumbTouched;
+    private int mColorThumbTouchedWrapper;
+    private boolean mTouched;
+
+    //----  Step mode tick marks. Rebuilt on layout, range, scale or style change only  ----
+    private int mMajorTickEvery;
+    private int mTickColor;
+    private int mMinorTickLength;
+    private int mMajorTickLength;
+    private boolean mTicksValid;
+    private float[] mTickLines = new float[0];
+    private int mTickLinesLength;
+
+    //----  Pre-rendered thumb sprites for the normal and touched (with wrapper) states  ----
+    private Drawable mThumbDrawable;
+    private boolean mThumbSpritesValid;
+    private Bitmap mThumbSprite;
+    private Bitmap mThumbSpriteTouched;
+    private Canvas mThumbSpriteCanvas;
+
+    private final Rect mContentAreaRect = new Rect();
+    private final Paint mPaintStroke;
+    private final Paint mPaintFill;
+    private final Paint mPaintBitmap;
+
+    VerticalSeekBarRenderer() {
+        mPaintStroke = new Paint();
+        mPaintStroke.setAntiAlias(true);
+        mPaintStroke.setStyle(Paint.Style.STROKE);
+        mPaintFill = new Paint();
+        mPaintFill.setAntiAlias(true);
+        mPaintFill.setStyle(Paint.Style.FILL);
+        mPaintBitmap = new Paint();
+        mPaintBitmap.setFilterBitmap(true);
+    }
+
+    /**
+     * @param thumbDrawable thumb drawable created from the style, owned by this renderer from now on
+     */
+    void bindConfig(VerticalSeekBarStyle style, @Nullable Drawable thumbDrawable) {
+        mModel.setThumbSize(style.thumbSize);
+        mModel.setPreferredTouchableAreaWidth(style.preferredTouchableAreaWidth);
+        mModel.setStepSize(style.stepSize);
+        mNotSelectedBarWidth = style.notSelectedBarWidth;
+        mSelectedBarWidth = style.selectedBarWidth;
+
+        mColorNotSelectedBar = style.colorNotSelectedBar;
+        mColorSelectedBar = style.colorSelectedBar;
+        mColorSelectedBarTouched = style.colorSelectedBarTouched;
+        mColorThumb = style.colorThumb;
+        mColorThumbTouched = style.colorThumbTouched;
+        mColorThumbTouchedWrapper = style.colorThumbTouchedWrapper;
+        mThumbDrawable = thumbDrawable;
+
+        mMajorTickEvery = style.majorTickEvery;
+        mTickColor = style.tickColor;
+        mMinorTickLength = style.minorTickLength;
+        mMajorTickLength = style.majorTickLength;
+
+        mTicksValid = false;
+        mThumbSpritesValid = false;
+    }
+
+    void layout(int width, int height, int paddingLeft, int paddingTop, int paddingRight, int paddingBottom) {
+        mModel.setPadding(paddingLeft, paddingTop, paddingRight, paddingBottom);
+        mModel.layout(width, height);
+        mTicksValid = false;
+        mThumbSpritesValid = false;
+    }
+
+    boolean isLaidOut() {
+        return mModel.isLaidOut();
+    }
+
+    void setScale(ValueScale scale) {
+        mModel.setScale(scale);
+        mTicksValid = false;
+    }
+
+    /**
+     * Does nothing if the range has not changed
+     */
+    void setRange(float min, float max) {
+        if (min == mModel.getMin() && max == mModel.getMax()) return;
+        mModel.setRange(min, max);
+        mTicksValid = false;
+    }
+
+    void setProgress(float progress) {
+        mModel.setProgress(progress);
+    }
+
+    float getProgress() {
+        return mModel.getProgress();
+    }
+
+    float getThumbPixelY() {
+        return mModel.getPixelYPosition();
+    }
+
+    void setTouched(boolean touched) {
+        mTouched = touched;
+    }
+
+    /**
+     * Draws over the canvas, which must be cleared by the caller. Allocates nothing after the first frame
+     * unless the geometry has changed.
+     */
+    void draw(Canvas canvas) {
+        final VerticalSeekBarModel m = mModel;
+        final int contentAreaStartX = m.getContentAreaStartX();
+        final int contentAreaStartY = m.getContentAreaStartY();
+        final int contentAreaWidth = m.getContentAreaWidth();
+        final int contentAreaHeight = m.getContentAreaHeight();
+        final float centerX = m.getContentAreaCenterHorizontal();
+        final float thumbPositionYTop = m.getThumbPositionYTop();
+        final float thumbPositionYBot = m.getThumbPositionYBot();
+        final float pixelYPosition = m.getPixelYPosition();
+
+        if (contentAreaWidth == 0 || contentAreaHeight == 0) return;
+        if (thumbPositionYBot - thumbPositionYTop <= 0) return;
+        canvas.save();
+        mContentAreaRect.set(contentAreaStartX, contentAreaStartY, contentAreaStartX+contentAreaWidth, contentAreaStartY+contentAreaHeight);
+        canvas.clipRect(mContentAreaRect);
+
+        //--- Draw tick marks of the step mode with a single call ---
+        if (hasTicks()) {
+            if (!mTicksValid) {
+                updateTickGeometry();
+            }
+            mPaintStroke.setColor(mTickColor);
+            mPaintStroke.setStrokeWidth(0);
+            canvas.drawLines(mTickLines, 0, mTickLinesLength, mPaintStroke);
+        }
+
+        //--- Draw non-selected bar ---
+        mPaintStroke.setColor(mColorNotSelectedBar);
+        mPaintStroke.setStrokeWidth(mNotSelectedBarWidth);
+        canvas.drawLine(centerX, thumbPositionYTop, centerX, thumbPositionYBot, mPaintStroke);
+
+        //--- Draw selected bar ---
+        mPaintStroke.setColor(mTouched ? mColorSelectedBarTouched : mColorSelectedBar);
+        mPaintStroke.setStrokeWidth(mSelectedBarWidth);
+        canvas.drawLine(centerX, pixelYPosition, centerX, thumbPositionYBot, mPaintStroke);
+
+        //--- Draw thumb (with wrapper, if touched) as a pre-rendered sprite ---
+        if (!mThumbSpritesValid) {
+            updateThumbSprites();
+        }
+        final Bitmap sprite = mTouched ? mThumbSpriteTouched : mThumbSprite;
+        final float spriteHalf = (float) sprite.getWidth() / 2f;
+        canvas.drawBitmap(sprite, centerX - spriteHalf, pixelYPosition - spriteHalf, mPaintBitmap);
+
+        canvas.restore();
+    }
+
+    /**
+     * Frees the sprite bitmaps. They are rendered again on the next draw.
+     */
+    void releaseDrawingCaches() {
+        if (mThumbSprite != null) {
+            mThumbSprite.recycle();
+            mThumbSprite = null;
+        }
+        if (mThumbSpriteTouched != null) {
+            mThumbSpriteTouched.recycle();
+            mThumbSpriteTouched = null;
+        }
+        mThumbSpritesValid = false;
+    }
+
+    private boolean hasTicks() {
+        return mModel.getStepSize() > 0 && (mMinorTickLength > 0 || mMajorTickLength > 0);
+    }
+
+    /**
+     * Same as in {@link VerticalSeekBar} - one horizontal line across the bar per step, every N-th tick is major.
+     */
+    private void updateTickGeometry() {
+        final VerticalSeekBarModel m = mModel;
+        final int nTicks = m.getStepCount() + 1;
+        if (mTickLines.length < 4 * nTicks) {
+            mTickLines = new float[4 * nTicks];
+        }
+        final float centerX = m.getContentAreaCenterHorizontal();
+        final float minor = (float) mMinorTickLength / 2f;
+        final float major = (float) mMajorTickLength / 2f;
+        final float min = m.getMin();
+        final float max = m.getMax();
+        final float step = m.getStepSize();
+        int j = 0;
+        for (int i = 0; i < nTicks; i++) {
+            final float value = (i == nTicks - 1) ? max : min + i * step;
+            final float halfLength = (mMajorTickEvery > 0 && i % mMajorTickEvery == 0) ? major : minor;
+            if (halfLength <= 0) continue;
+            final float y = m.getPixelForValue(value);
+            mTickLines[j++] = centerX - halfLength;
+            mTickLines[j++] = y;
+            mTickLines[j++] = centerX + halfLength;
+            mTickLines[j++] = y;
+        }
+        mTickLinesLength = j;
+        mTicksValid = true;
+    }
+
+    private void updateThumbSprites() {
+        final float thumbRadius = mModel.getThumbSizeHalf();
+        final float wrapperRadius = (float) mModel.getContentAreaWidth() / 2f;
+        mThumbSprite = renderThumbSprite(mThumbSprite, thumbRadius, false);
+        mThumbSpriteTouched = renderThumbSprite(mThumbSpriteTouched, Math.max(thumbRadius, wrapperRadius), true);
+        mThumbSpritesValid = true;
+    }
+
+    /**
+     * Renders the thumb centered in a square bitmap. The old bitmap is reused if it has the same size.
+     *
+     * @param spriteRadius half of the sprite size without the 1px anti-aliasing margin
+     */
+    private Bitmap renderThumbSprite(@Nullable Bitmap sprite, float spriteRadius, boolean touched) {
+        final int size = (int) Math.ceil(2f * spriteRadius) + 2;
+        if (sprite == null || sprite.getWidth() != size) {
+            if (sprite != null) sprite.recycle();
+            sprite = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+        } else {
+            sprite.eraseColor(Color.TRANSPARENT);
+        }
+        if (mThumbSpriteCanvas == null) {
+            mThumbSpriteCanvas = new Canvas(sprite);
+        } else {
+            mThumbSpriteCanvas.setBitmap(sprite);
+        }
+
+        final float center = (float) size / 2f;
+        if (touched) {
+            mPaintFill.setColor(mColorThumbTouchedWrapper);
+            mThumbSpriteCanvas.drawCircle(center, center, (float) mModel.getContentAreaWidth() / 2f, mPaintFill);
+        }
+        if (mThumbDrawable != null) {
+            final float thumbHalf = mModel.getThumbSizeHalf();
+            mThumbDrawable.setState(touched ? STATE_PRESSED : STATE_NORMAL);
+            mThumbDrawable.setBounds(Math.round(center - thumbHalf), Math.round(center - thumbHalf), Math.round(center + thumbHalf), Math.round(center + thumbHalf));
+            mThumbDrawable.draw(mThumbSpriteCanvas);
+        } else {
+            mPaintFill.setColor(touched ? mColorThumbTouched : mColorThumb);
+            mThumbSpriteCanvas.drawCircle(center, center, mModel.getThumbSizeHalf(), mPaintFill);
+        }
+        return sprite;
+    }
+}
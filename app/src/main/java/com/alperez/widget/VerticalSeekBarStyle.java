@@ -0,0 +1,318 @@
+package com.alperez.widget;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.content.res.TypedArray;
+import android.graphics.drawable.Drawable;
+import android.support.annotation.Nullable;
+import android.support.v4.util.LongSparseArray;
+import android.util.AttributeSet;
+
+import com.alperez.verticalseekbardemo.R;
+
+import java.util.Arrays;
+import java.util.WeakHashMap;
+
+/**
+ * Immutable set of resolved {@link VerticalSeekBar} attributes - sizes, colors, step mode and debug flags.
+ * Instances are cached per theme and style, so seek bars inflated with the same style share one object
+ * instead of resolving the same attributes again. A style can also be applied to a recycled seek bar
+ * with {@link VerticalSeekBar#bindConfig(VerticalSeekBarStyle)}.
+ *
+ * Only attribute sets which define no seek bar attributes inline (i.e. just a style="..." reference) are cached.
+ */
+public final class VerticalSeekBarStyle {
+
+    /**
+     * Style with default values of all attributes
+     */
+    public static final VerticalSeekBarStyle DEFAULT = new VerticalSeekBarStyle();
+
+    // Cache of resolved styles. Key is a pair of style resource and default style attribute.
+    private static final WeakHashMap<Resources.Theme, LongSparseArray<VerticalSeekBarStyle>> sCache = new WeakHashMap<Resources.Theme, LongSparseArray<VerticalSeekBarStyle>>();
+    // Channel counts of VerticalSeekBarBank styles, with the same keys
+    private static final WeakHashMap<Resources.Theme, LongSparseArray<Integer>> sChannelCountCache = new WeakHashMap<Resources.Theme, LongSparseArray<Integer>>();
+
+    // Sizes of content items
+    final int thumbSize;
+    final int notSelectedBarWidth;
+    final int selectedBarWidth;
+    final int preferredTouchableAreaWidth;
+
+    // Colors of elements
+    final int colorNotSelectedBar;
+    final int colorSelectedBar;
+    final int colorSelectedBarTouched;
+    final int colorThumb;
+    final int colorThumbTouched;
+    final int colorThumbTouchedWrapper;
+
+    // Prototype of the thumb drawable. It is never given out, every seek bar gets its own copy.
+    @Nullable
+    private final Drawable thumbDrawable;
+
+    // Step mode
+    final float stepSize;
+    final int majorTickEvery;
+    final int tickColor;
+    final int minorTickLength;
+    final int majorTickLength;
+
+    // Arguments for test drawings
+    final boolean testShowContentArea;
+    final int testContentAreaColor;
+    final boolean testShowTouchableArea;
+    final int testTouchableAreaColor;
+
+    private VerticalSeekBarStyle() {
+        thumbSize = 25;
+        notSelectedBarWidth = 4;
+        selectedBarWidth = 10;
+        preferredTouchableAreaWidth = 0;
+        colorNotSelectedBar = 0;
+        colorSelectedBar = 0;
+        colorSelectedBarTouched = 0;
+        colorThumb = 0;
+        colorThumbTouched = 0;
+        colorThumbTouchedWrapper = 0;
+        thumbDrawable = null;
+        stepSize = 0;
+        majorTickEvery = 0;
+        tickColor = 0;
+        minorTickLength = 0;
+        majorTickLength = 0;
+        testShowContentArea = false;
+        testContentAreaColor = 0;
+        testShowTouchableArea = false;
+        testTouchableAreaColor = 0;
+    }
+
+    private VerticalSeekBarStyle(TypedArray a) {
+        final VerticalSeekBarStyle d = DEFAULT;
+        thumbSize = a.getDimensionPixelSize(R.styleable.VerticalSeekBar_thumbSize, d.thumbSize);
+        notSelectedBarWidth = a.getDimensionPixelSize(R.styleable.VerticalSeekBar_notSelectedBarWidth, d.notSelectedBarWidth);
+        selectedBarWidth = a.getDimensionPixelSize(R.styleable.VerticalSeekBar_selectedBarWidth, d.selectedBarWidth);
+        preferredTouchableAreaWidth = a.getDimensionPixelSize(R.styleable.VerticalSeekBar_prefTouchAreaWidth, d.preferredTouchableAreaWidth);
+
+        colorNotSelectedBar = a.getColor(R.styleable.VerticalSeekBar_notSelectedBarColor, d.colorNotSelectedBar);
+        colorSelectedBar = a.getColor(R.styleable.VerticalSeekBar_selectedBarColor, d.colorSelectedBar);
+        colorSelectedBarTouched = a.getColor(R.styleable.VerticalSeekBar_selectedBarColorTouched, d.colorSelectedBarTouched);
+        colorThumb = a.getColor(R.styleable.VerticalSeekBar_thumbColor, d.colorThumb);
+        colorThumbTouched = a.getColor(R.styleable.VerticalSeekBar_thumbTouchedColor, d.colorThumbTouched);
+        colorThumbTouchedWrapper = a.getColor(R.styleable.VerticalSeekBar_thumbTouchedWrapperColor, d.colorThumbTouchedWrapper);
+        thumbDrawable = a.getDrawable(R.styleable.VerticalSeekBar_thumbDrawable);
+
+        stepSize = a.getFloat(R.styleable.VerticalSeekBar_stepSize, d.stepSize);
+        majorTickEvery = a.getInt(R.styleable.VerticalSeekBar_majorTickEvery, d.majorTickEvery);
+        tickColor = a.getColor(R.styleable.VerticalSeekBar_tickColor, colorNotSelectedBar);
+        minorTickLength = a.getDimensionPixelSize(R.styleable.VerticalSeekBar_minorTickLength, d.minorTickLength);
+        majorTickLength = a.getDimensionPixelSize(R.styleable.VerticalSeekBar_majorTickLength, minorTickLength);
+
+        testShowContentArea = a.getBoolean(R.styleable.VerticalSeekBar_testDrawContentArea, false);
+        testContentAreaColor = testShowContentArea ? a.getColor(R.styleable.VerticalSeekBar_testContentAreaColor, 0) : 0;
+        testShowTouchableArea = a.getBoolean(R.styleable.VerticalSeekBar_testShowTouchableArea, false);
+        testTouchableAreaColor = testShowTouchableArea ? a.getColor(R.styleable.VerticalSeekBar_testTouchableAreaColor, 0) : 0;
+
+        if (selectedBarWidth > thumbSize)
+            throw new IllegalArgumentException("Selected bar width must not exceed thumb size");
+        if (notSelectedBarWidth > selectedBarWidth)
+            throw new IllegalArgumentException("Not selected bar width must not exceed selected bar width");
+    }
+
+
+    /**
+     * Resolves seek bar attributes of a style resource with the context's theme. Results are cached.
+     */
+    public static VerticalSeekBarStyle obtain(Context context, int styleRes) {
+        final long key = cacheKey(styleRes, 0);
+        VerticalSeekBarStyle style = getCached(context.getTheme(), key);
+        if (style == null) {
+            TypedArray a = context.obtainStyledAttributes(styleRes, R.styleable.VerticalSeekBar);
+            try {
+                style = new VerticalSeekBarStyle(a);
+            } finally {
+                a.recycle();
+            }
+            putCached(context.getTheme(), key, style);
+        }
+        return style;
+    }
+
+    /**
+     * Resolves seek bar attributes of an inflated View. Results are cached if the attribute set defines
+     * no seek bar attributes inline.
+     */
+    public static VerticalSeekBarStyle obtain(Context context, @Nullable AttributeSet attrs, int defStyleAttr) {
+        if (attrs == null) return DEFAULT;
+
+        final boolean cacheable = !hasInlineAttributes(attrs);
+        final long key = cacheKey(attrs.getStyleAttribute(), defStyleAttr);
+        if (cacheable) {
+            final VerticalSeekBarStyle style = getCached(context.getTheme(), key);
+            if (style != null) return style;
+        }
+
+        final VerticalSeekBarStyle style;
+        TypedArray a = context.obtainStyledAttributes(attrs, R.styleable.VerticalSeekBar, defStyleAttr, 0);
+        try {
+            style = new VerticalSeekBarStyle(a);
+        } finally {
+            a.recycle();
+        }
+        if (cacheable) {
+            putCached(context.getTheme(), key, style);
+        }
+        return style;
+    }
+
+    /**
+     * Drops all cached styles. Must be called if a theme is modified after seek bars were inflated with it.
+     */
+    public static void clearCache() {
+        synchronized (sCache) {
+            sCache.clear();
+            sChannelCountCache.clear();
+        }
+    }
+
+    /**
+     * Resolves the channelCount attribute of an inflated {@link VerticalSeekBarBank}. A value defined inline
+     * is read from the attribute set, a value from the style is cached like the style itself.
+     */
+    static int obtainChannelCount(Context context, AttributeSet attrs, int defStyleAttr, int defValue) {
+        for (int i = 0, n = attrs.getAttributeCount(); i < n; i++) {
+            if (attrs.getAttributeNameResource(i) == R.attr.channelCount) {
+                final int resId = attrs.getAttributeResourceValue(i, 0);
+                if (resId != 0) return context.getResources().getInteger(resId);
+                final String value = attrs.getAttributeValue(i);
+                if (value != null && value.startsWith("?")) {
+                    // Theme attribute, leave it to the framework
+                    return resolveChannelCount(context, attrs, defStyleAttr, defValue);
+                }
+                return attrs.getAttributeIntValue(i, defValue);
+            }
+        }
+
+        final long key = cacheKey(attrs.getStyleAttribute(), defStyleAttr);
+        final Resources.Theme theme = context.getTheme();
+        synchronized (sCache) {
+            final LongSparseArray<Integer> themeCache = sChannelCountCache.get(theme);
+            final Integer cached = (themeCache == null) ? null : themeCache.get(key);
+            if (cached != null) return cached;
+        }
+        final int channelCount = resolveChannelCount(context, attrs, defStyleAttr, defValue);
+        synchronized (sCache) {
+            LongSparseArray<Integer> themeCache = sChannelCountCache.get(theme);
+            if (themeCache == null) {
+                themeCache = new LongSparseArray<Integer>();
+                sChannelCountCache.put(theme, themeCache);
+            }
+            themeCache.put(key, channelCount);
+        }
+        return channelCount;
+    }
+
+    private static int resolveChannelCount(Context context, AttributeSet attrs, int defStyleAttr, int defValue) {
+        TypedArray a = context.obtainStyledAttributes(attrs, R.styleable.VerticalSeekBarBank, defStyleAttr, 0);
+        try {
+            return a.getInt(R.styleable.VerticalSeekBarBank_channelCount, defValue);
+        } finally {
+            a.recycle();
+        }
+    }
+
+    private static boolean hasInlineAttributes(AttributeSet attrs) {
+        for (int i = 0, n = attrs.getAttributeCount(); i < n; i++) {
+            // Styleable arrays are sorted by attribute ID
+            if (Arrays.binarySearch(R.styleable.VerticalSeekBar, attrs.getAttributeNameResource(i)) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long cacheKey(int styleRes, int defStyleAttr) {
+        return ((long) styleRes << 32) | (defStyleAttr & 0xFFFFFFFFL);
+    }
+
+    @Nullable
+    private static VerticalSeekBarStyle getCached(Resources.Theme theme, long key) {
+        synchronized (sCache) {
+            final LongSparseArray<VerticalSeekBarStyle> themeCache = sCache.get(theme);
+            return (themeCache == null) ? null : themeCache.get(key);
+        }
+    }
+
+    private static void putCached(Resources.Theme theme, long key, VerticalSeekBarStyle style) {
+        synchronized (sCache) {
+            LongSparseArray<VerticalSeekBarStyle> themeCache = sCache.get(theme);
+            if (themeCache == null) {
+                themeCache = new LongSparseArray<VerticalSeekBarStyle>();
+                sCache.put(theme, themeCache);
+            }
+            themeCache.put(key, style);
+        }
+    }
+
+
+    /**
+     * Creates a thumb drawable for one seek bar. Drawables have mutable state - bounds, drawable state, alpha,
+     * color filter - so one instance must not be shared between Views or threads.
+     *
+     * @return new mutable drawable, or null if the style defines no thumb drawable
+     */
+    @Nullable
+    public Drawable newThumbDrawable(Resources res) {
+        if (thumbDrawable == null) return null;
+        final Drawable.ConstantState state = thumbDrawable.getConstantState();
+        // A drawable without constant state can't be copied. Such drawables are rare and are shared as before.
+        return (state == null) ? thumbDrawable : state.newDrawable(res).mutate();
+    }
+
+
+    /*********************************  Getters  **************************************************/
+
+    public int getThumbSize() {
+        return thumbSize;
+    }
+
+    public int getNotSelectedBarWidth() {
+        return notSelectedBarWidth;
+    }
+
+    public int getSelectedBarWidth() {
+        return selectedBarWidth;
+    }
+
+    public int getPreferredTouchableAreaWidth() {
+        return preferredTouchableAreaWidth;
+    }
+
+    public int getColorNotSelectedBar() {
+        return colorNotSelectedBar;
+    }
+
+    public int getColorSelectedBar() {
+        return colorSelectedBar;
+    }
+
+    public int getColorSelectedBarTouched() {
+        return colorSelectedBarTouched;
+    }
+
+    public int getColorThumb() {
+        return colorThumb;
+    }
+
+    public int getColorThumbTouched() {
+        return colorThumbTouched;
+    }
+
+    public int getColorThumbTouchedWrapper() {
+        return colorThumbTouchedWrapper;
+    }
+
+    public float getStepSize() {
+        return stepSize;
+    }
+}
@@ -0,0 +1,467 @@
+package com.alperez.widget;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.PorterDuff;
+import android.graphics.SurfaceTexture;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+import android.support.annotation.Nullable;
+import android.support.v4.view.MotionEventCompat;
+import android.util.AttributeSet;
+import android.view.MotionEvent;
+import android.view.Surface;
+import android.view.TextureView;
+import android.view.View;
+
+import com.alperez.widget.core.ValueScale;
+import com.alperez.widget.core.VerticalSeekBarModel;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Variant of {@link VerticalSeekBar} which draws off the UI thread, for screens with continuously moving bars
+ * (e.g. level meters). Drawing is done by a {@link VerticalSeekBarRenderer}, which is not a View, so both variants
+ * look the same. Touches are handled on the UI thread with a separate {@link VerticalSeekBarModel}.
+ *
+ * Progress can be set from any thread. Values, touch state and configuration are handed over to the render thread
+ * lock-free. The render thread sleeps until something changes and draws at most once per posted buffer,
+ * so intermediate values are coalesced.
+ *
+ * All instances are drawn by one {@link SharedRenderThread}, but every instance owns a surface texture with its
+ * buffers and is composited by the UI as a separate layer. For many channels side by side prefer
+ * {@link VerticalSeekBarBank}, which draws all of them in one View.
+ *
+ * Requires API 14 and a hardware-accelerated window. Loading this class on older versions fails with
+ * {@link NoClassDefFoundError}, use {@link VerticalSeekBarFactory} there.
+ */
+@TargetApi(Build.VERSION_CODES.ICE_CREAM_SANDWICH)
+public class VerticalSeekBarTextureView extends TextureView implements TextureView.SurfaceTextureListener, VerticalSeekBarControl {
+
+    public interface OnProgressChangeListener {
+        /**
+         * Called on the UI thread for changes made by user's touch
+         */
+        void onProgressChanged(VerticalSeekBarTextureView view, float progress);
+    }
+
+    /**
+     * Size and paddings of the View. Immutable, handed over to the render thread on layout only.
+     */
+    private static final class Geometry {
+        final int width, height;
+        final int paddingLeft, paddingTop, paddingRight, paddingBottom;
+
+        Geometry(int width, int height, int paddingLeft, int paddingTop, int paddingRight, int paddingBottom) {
+            this.width = width;
+            this.height = height;
+            this.paddingLeft = paddingLeft;
+            this.paddingTop = paddingTop;
+            this.paddingRight = paddingRight;
+            this.paddingBottom = paddingBottom;
+        }
+    }
+
+    /**
+     * Style together with the thumb drawable for the renderer. The drawable is created on the UI thread
+     * and is owned by the render thread after the hand-over.
+     */
+    private static final class StyleBinding {
+        final VerticalSeekBarStyle style;
+        @Nullable
+        final Drawable thumbDrawable;
+
+        StyleBinding(VerticalSeekBarStyle style, @Nullable Drawable thumbDrawable) {
+            this.style = style;
+            this.thumbDrawable = thumbDrawable;
+        }
+    }
+
+    //----  UI thread state  ----
+    private final VerticalSeekBarModel mTouchModel = new VerticalSeekBarModel();
+    private boolean targetIsBeingTouched;
+    private int mActivePointerId = -1;
+    private OnProgressChangeListener mProgressListener;
+    private volatile RenderTarget mRenderTarget;
+
+    //----  Handed over to the render thread. Only the latest values are kept  ----
+    private final AtomicInteger mProgressBits = new AtomicInteger(Float.floatToRawIntBits(50));
+    private final AtomicLong mRangeBits = new AtomicLong(packRange(0, 100));
+    private final AtomicBoolean mTouched = new AtomicBoolean();
+    private final AtomicReference<StyleBinding> mPendingStyle = new AtomicReference<StyleBinding>();
+    private final AtomicReference<ValueScale> mPendingScale = new AtomicReference<ValueScale>();
+    private final AtomicReference<Geometry> mPendingGeometry = new AtomicReference<Geometry>();
+
+    // Used by the render thread only once the first surface is available
+    private final VerticalSeekBarRenderer mRenderer = new VerticalSeekBarRenderer();
+
+    public VerticalSeekBarTextureView(Context context) {
+        super(context);
+        init(VerticalSeekBarStyle.DEFAULT);
+    }
+
+    public VerticalSeekBarTextureView(Context context, @Nullable AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    public VerticalSeekBarTextureView(Context context, @Nullable AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        init(VerticalSeekBarStyle.obtain(context, attrs, defStyleAttr));
+    }
+
+    private void init(VerticalSeekBarStyle style) {
+        setOpaque(false);
+        setSurfaceTextureListener(this);
+        bindConfig(style);
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        setMeasuredDimension(VerticalSeekBar.getActualViewSize(mTouchModel.getMinimumWidth(), widthMeasureSpec),
+                VerticalSeekBar.getActualViewSize(mTouchModel.getMinimumHeight(), heightMeasureSpec));
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        updateGeometry();
+    }
+
+    @Override
+    public void setPadding(int left, int top, int right, int bottom) {
+        super.setPadding(left, top, right, bottom);
+        updateGeometry();
+    }
+
+    private void updateGeometry() {
+        targetIsBeingTouched = false;
+        mActivePointerId = -1;
+        mTouched.set(false);
+        mTouchModel.setPadding(getPaddingLeft(), getPaddingTop(), getPaddingRight(), getPaddingBottom());
+        if (getWidth() > 0 && getHeight() > 0) {
+            mTouchModel.layout(getWidth(), getHeight());
+            mPendingGeometry.set(new Geometry(getWidth(), getHeight(),
+                    getPaddingLeft(), getPaddingTop(), getPaddingRight(), getPaddingBottom()));
+            requestRender();
+        }
+    }
+
+
+    /*********************************  Touch handling on the UI thread  *************************/
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (mTouchModel.isLaidOut()) {
+            switch (MotionEventCompat.getActionMasked(event)) {
+                case MotionEvent.ACTION_DOWN:
+                case MotionEvent.ACTION_POINTER_DOWN:
+                    if (!targetIsBeingTouched) {
+                        final int pointerIndex = MotionEventCompat.getActionIndex(event);
+                        // Progress may have been set from another thread
+                        mTouchModel.setProgress(Float.intBitsToFloat(mProgressBits.get()));
+                        if (mTouchModel.isTouchValid(event.getX(pointerIndex), event.getY(pointerIndex))) {
+                            targetIsBeingTouched = true;
+                            mActivePointerId = event.getPointerId(pointerIndex);
+                            mTouched.set(true);
+                            moveThumb(event.getY(pointerIndex));
+                            return true;
+                        }
+                    }
+                    break;
+                case MotionEvent.ACTION_MOVE:
+                    if (targetIsBeingTouched) {
+                        final int pointerIndex = event.findPointerIndex(mActivePointerId);
+                        if (pointerIndex >= 0) {
+                            moveThumb(event.getY(pointerIndex));
+                        }
+                        return true;
+                    }
+                    break;
+                case MotionEvent.ACTION_POINTER_UP:
+                    if (targetIsBeingTouched) {
+                        if (event.getPointerId(MotionEventCompat.getActionIndex(event)) == mActivePointerId) {
+                            stopTouchMode();
+                        }
+                        return true;
+                    }
+                    break;
+                case MotionEvent.ACTION_UP:
+                case MotionEvent.ACTION_CANCEL:
+                    if (targetIsBeingTouched) {
+                        stopTouchMode();
+                        return true;
+                    }
+                    break;
+            }
+        }
+        return super.onTouchEvent(event);
+    }
+
+    private void moveThumb(float pointerY) {
+        final float oldProgress = mTouchModel.getProgress();
+        mTouchModel.setThumbPixelPosition(pointerY);
+        final float progress = mTouchModel.getProgress();
+        mProgressBits.set(Float.floatToRawIntBits(progress));
+        requestRender();
+        if (progress != oldProgress && mProgressListener != null) {
+            mProgressListener.onProgressChanged(this, progress);
+        }
+    }
+
+    private void stopTouchMode() {
+        targetIsBeingTouched = false;
+        mActivePointerId = -1;
+        mTouched.set(false);
+        requestRender();
+    }
+
+
+    /*********************************  Public API  **********************************************/
+
+    /**
+     * Sets progress value. Can be called from any thread, never blocks. Values set while the user
+     * is touching the thumb are ignored.
+     */
+    public void setProgress(float progress) {
+        if (mTouched.get()) return;
+        final long range = mRangeBits.get();
+        final float min = Float.intBitsToFloat((int) (range >>> 32));
+        final float max = Float.intBitsToFloat((int) range);
+        if (progress < min) progress = min;
+        if (progress > max) progress = max;
+        mProgressBits.set(Float.floatToRawIntBits(progress));
+        requestRender();
+    }
+
+    /**
+     * Same as {@link #setProgress(float)}, which is thread-safe in this variant.
+     */
+    @Override
+    public void publishProgress(float progress) {
+        setProgress(progress);
+    }
+
+    /**
+     * @return the last progress value set by user or by {@link #setProgress(float)}. Can be called from any thread.
+     */
+    public float getProgress() {
+        return Float.intBitsToFloat(mProgressBits.get());
+    }
+
+    @Override
+    public View getView() {
+        return this;
+    }
+
+    /**
+     * Must be called from the UI thread.
+     */
+    public void setRange(float min, float max) {
+        mTouchModel.setRange(min, max);
+        mRangeBits.set(packRange(min, max));
+        mProgressBits.set(Float.floatToRawIntBits(mTouchModel.getProgress()));
+        requestRender();
+    }
+
+    public float getMin() {
+        return mTouchModel.getMin();
+    }
+
+    public float getMax() {
+        return mTouchModel.getMax();
+    }
+
+    /**
+     * Must be called from the UI thread.
+     */
+    public void setValueScale(ValueScale scale) {
+        mTouchModel.setScale(scale);
+        mPendingScale.set(scale);
+        requestRender();
+    }
+
+    public ValueScale getValueScale() {
+        return mTouchModel.getScale();
+    }
+
+    /**
+     * Applies a resolved style. Must be called from the UI thread.
+     */
+    public void bindConfig(VerticalSeekBarStyle style) {
+        final boolean minimumSizeChanged = (style.thumbSize != mTouchModel.getThumbSize());
+        mTouchModel.setThumbSize(style.thumbSize);
+        mTouchModel.setPreferredTouchableAreaWidth(style.preferredTouchableAreaWidth);
+        mTouchModel.setStepSize(style.stepSize);
+        mPendingStyle.set(new StyleBinding(style, style.newThumbDrawable(getResources())));
+        if (minimumSizeChanged) {
+            requestLayout();
+        }
+        requestRender();
+    }
+
+    public void setOnProgressChangeListener(@Nullable OnProgressChangeListener listener) {
+        mProgressListener = listener;
+    }
+
+    private static long packRange(float min, float max) {
+        return ((long) Float.floatToRawIntBits(min) << 32) | (Float.floatToRawIntBits(max) & 0xFFFFFFFFL);
+    }
+
+    private void requestRender() {
+        final RenderTarget target = mRenderTarget;
+        if (target != null) {
+            getRenderThread().requestRender(target);
+        }
+    }
+
+
+    /*********************************  Surface lifecycle  ***************************************/
+
+    @Override
+    public void onSurfaceTextureAvailable(SurfaceTexture surface, int width, int height) {
+        mRenderTarget = new RenderTarget(createFrameSink(surface));
+        getRenderThread().add(mRenderTarget);
+    }
+
+    @Override
+    public void onSurfaceTextureSizeChanged(SurfaceTexture surface, int width, int height) {
+        requestRender();
+    }
+
+    /**
+     * Does not wait for the render thread. The surface texture is released by the render thread after
+     * the frame in progress, hence false is returned.
+     */
+    @Override
+    public boolean onSurfaceTextureDestroyed(SurfaceTexture surface) {
+        final RenderTarget target = mRenderTarget;
+        if (target != null) {
+            mRenderTarget = null;
+            getRenderThread().release(target);
+        }
+        return (target == null);
+    }
+
+    @Override
+    public void onSurfaceTextureUpdated(SurfaceTexture surface) {
+    }
+
+    SharedRenderThread getRenderThread() {
+        return SharedRenderThread.getInstance();
+    }
+
+    FrameSink createFrameSink(SurfaceTexture surfaceTexture) {
+        return new SurfaceFrameSink(surfaceTexture);
+    }
+
+
+    /*********************************  Render thread  *******************************************/
+
+    /**
+     * Destination of the frames. Used on the render thread only.
+     */
+    interface FrameSink {
+        /**
+         * @return canvas to draw the next frame on, or null if there is nothing to draw on
+         */
+        @Nullable
+        Canvas lockCanvas();
+
+        void unlockCanvasAndPost(Canvas canvas);
+
+        /**
+         * Releases the surface. No frames are drawn afterwards.
+         */
+        void release();
+    }
+
+    private static final class SurfaceFrameSink implements FrameSink {
+        private final SurfaceTexture surfaceTexture;
+        private final Surface surface;
+
+        SurfaceFrameSink(SurfaceTexture surfaceTexture) {
+            this.surfaceTexture = surfaceTexture;
+            surface = new Surface(surfaceTexture);
+        }
+
+        @Override
+        public Canvas lockCanvas() {
+            try {
+                return surface.lockCanvas(null);
+            } catch (Surface.OutOfResourcesException e) {
+                // The surface is gone. Nothing to draw into until a new one is available
+                return null;
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public void unlockCanvasAndPost(Canvas canvas) {
+            surface.unlockCanvasAndPost(canvas);
+        }
+
+        @Override
+        public void release() {
+            surface.release();
+            surfaceTexture.release();
+        }
+    }
+
+    /**
+     * Draws the frames of this View into one surface. A new target is created for every surface.
+     */
+    private final class RenderTarget extends SharedRenderThread.Target {
+        private final FrameSink sink;
+
+        RenderTarget(FrameSink sink) {
+            this.sink = sink;
+        }
+
+        @Override
+        void onRender() {
+            applyPendingState();
+            if (!mRenderer.isLaidOut()) return;
+            final Canvas canvas = sink.lockCanvas();
+            if (canvas == null) return;
+            try {
+                canvas.drawColor(Color.TRANSPARENT, PorterDuff.Mode.CLEAR);
+                mRenderer.draw(canvas);
+            } finally {
+                // Blocks while the consumer holds all buffers, which paces rendering to the display
+                sink.unlockCanvasAndPost(canvas);
+            }
+        }
+
+        @Override
+        void onReleased() {
+            sink.release();
+            mRenderer.releaseDrawingCaches();
+        }
+
+        private void applyPendingState() {
+            final VerticalSeekBarRenderer r = mRenderer;
+            final StyleBinding binding = mPendingStyle.getAndSet(null);
+            if (binding != null) {
+                r.bindConfig(binding.style, binding.thumbDrawable);
+            }
+            final Geometry g = mPendingGeometry.getAndSet(null);
+            if (g != null) {
+                r.layout(g.width, g.height, g.paddingLeft, g.paddingTop, g.paddingRight, g.paddingBottom);
+            }
+            final ValueScale scale = mPendingScale.getAndSet(null);
+            if (scale != null) {
+                r.setScale(scale);
+            }
+            final long range = mRangeBits.get();
+            r.setRange(Float.intBitsToFloat((int) (range >>> 32)), Float.intBitsToFloat((int) range));
+            r.setProgress(Float.intBitsToFloat(mProgressBits.get()));
+            r.setTouched(mTouched.get());
+        }
+    }
+}
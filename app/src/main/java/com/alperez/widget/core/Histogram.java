@@ -0,0 +1,102 @@
+package com.alperez.widget.core;
+
+/**
+ * Fixed-size histogram of non-negative long values with logarithmic buckets. Each power of 2 is split
+ * into 8 linear sub-buckets, so any value is reported with a relative error below 12.5%.
+ * Recording is O(1) and never allocates. The bucket array is allocated once in the constructor.
+ *
+ * This class is not thread-safe.
+ */
+public final class Histogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_MASK = SUB_BUCKET_COUNT - 1;
+
+    // Values below SUB_BUCKET_COUNT are stored exactly. Larger ones - by exponent and the 3 following bits.
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    private final long[] mCounts = new long[BUCKET_COUNT];
+    private long mTotalCount;
+    private long mMin = Long.MAX_VALUE;
+    private long mMax;
+    private double mSum;
+
+    public void record(long value) {
+        if (value < 0) value = 0;
+        mCounts[bucketIndex(value)] ++;
+        mTotalCount ++;
+        mSum += value;
+        if (value < mMin) mMin = value;
+        if (value > mMax) mMax = value;
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            mCounts[i] = 0;
+        }
+        mTotalCount = 0;
+        mMin = Long.MAX_VALUE;
+        mMax = 0;
+        mSum = 0;
+    }
+
+    /**
+     * Copies all data to another histogram. Allocation-free.
+     */
+    public void copyTo(Histogram dst) {
+        System.arraycopy(mCounts, 0, dst.mCounts, 0, BUCKET_COUNT);
+        dst.mTotalCount = mTotalCount;
+        dst.mMin = mMin;
+        dst.mMax = mMax;
+        dst.mSum = mSum;
+    }
+
+    public long getCount() {
+        return mTotalCount;
+    }
+
+    public long getMin() {
+        return (mTotalCount == 0) ? 0 : mMin;
+    }
+
+    public long getMax() {
+        return mMax;
+    }
+
+    public double getMean() {
+        return (mTotalCount == 0) ? 0 : mSum / mTotalCount;
+    }
+
+    /**
+     * @param percentile value in the range 0..100
+     * @return the upper bound of the bucket which contains the given percentile, but not more then the max recorded value
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (mTotalCount == 0) return 0;
+        long threshold = (long) Math.ceil(percentile / 100.0 * mTotalCount);
+        if (threshold < 1) threshold = 1;
+        long accumulated = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            accumulated += mCounts[i];
+            if (accumulated >= threshold) {
+                final long upper = bucketLowerBound(i + 1) - 1;
+                return (upper < mMax) ? upper : mMax;
+            }
+        }
+        return mMax;
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) return (int) value;
+        final int exponent = 63 - Long.numberOfLeadingZeros(value);
+        final int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & SUB_BUCKET_MASK;
+        return ((exponent - SUB_BUCKET_BITS + 1) << SUB_BUCKET_BITS) | subBucket;
+    }
+
+    static long bucketLowerBound(int index) {
+        if (index < SUB_BUCKET_COUNT) return index;
+        final int block = index >>> SUB_BUCKET_BITS;
+        final long mantissa = SUB_BUCKET_COUNT + (index & SUB_BUCKET_MASK);
+        return (block >= 64 - SUB_BUCKET_BITS) ? Long.MAX_VALUE : mantissa << (block - 1);
+    }
+}
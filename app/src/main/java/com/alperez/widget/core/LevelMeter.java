@@ -0,0 +1,158 @@
+package com.alperez.widget.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Signal level meter with peak hold and decay, fed from a real-time audio thread.
+ *
+ * The writer (one audio thread) calls {@link #publish(float, float)} per audio block. It is wait-free and
+ * constant-time: no locks, no allocations, no retry loops. Levels of all blocks published between two reads
+ * are folded into their maximum, so no peak is lost when the audio rate is higher than the frame rate.
+ *
+ * The reader (UI thread) calls {@link #update(long)} once per frame and then draws the display levels.
+ *
+ * Levels are linear fractions of the full scale, in range [0, 1].
+ */
+public final class LevelMeter {
+
+    //----  Shared. Peak and RMS float bits are packed into one long, so they are always consistent  ----
+    private final AtomicLong mLevels = new AtomicLong();
+    private final AtomicLong mPublished = new AtomicLong();      // Sequence of the last publish
+    private final AtomicLong mAcknowledged = new AtomicLong();   // Last sequence seen by the reader
+
+    //----  Writer thread state  ----
+    private long mWriterSequence;
+    private float mAccumulatedPeak;
+    private float mAccumulatedRms;
+
+    //----  Reader thread state  ----
+    private long mReaderSequence;
+    private long mLastFrameTimeMs = -1;
+    private float mPeak;
+    private float mRms;
+    private float mPeakHold;
+    private long mPeakHoldUntilMs;
+    private long mHoldTimeMs = 1500;
+    private float mDecayPerSecond = 1.5f;
+
+    /**
+     * Publishes levels of one audio block. Must be called from a single writer thread.
+     */
+    public void publish(float peak, float rms) {
+        if (mAcknowledged.get() == mWriterSequence) {
+            // The reader has seen everything published so far
+            mAccumulatedPeak = peak;
+            mAccumulatedRms = rms;
+        } else {
+            if (peak > mAccumulatedPeak) mAccumulatedPeak = peak;
+            if (rms > mAccumulatedRms) mAccumulatedRms = rms;
+        }
+        mWriterSequence ++;
+        mLevels.lazySet(((long) Float.floatToRawIntBits(mAccumulatedPeak) << 32) | (Float.floatToRawIntBits(mAccumulatedRms) & 0xFFFFFFFFL));
+        mPublished.lazySet(mWriterSequence);
+    }
+
+    /**
+     * Takes levels published since the previous call and advances peak hold and decay to the frame time.
+     * Must be called from the reader thread.
+     *
+     * @param frameTimeMs time of the frame being drawn
+     * @return true if any of display levels has changed
+     */
+    public boolean update(long frameTimeMs) {
+        float inPeak = 0;
+        float inRms = 0;
+        final long sequence = mPublished.get();
+        if (sequence != mReaderSequence) {
+            // Levels are written before the sequence, so they include at least everything up to it
+            final long levels = mLevels.get();
+            mAcknowledged.lazySet(sequence);
+            mReaderSequence = sequence;
+            inPeak = clampLevel(Float.intBitsToFloat((int) (levels >>> 32)));
+            inRms = clampLevel(Float.intBitsToFloat((int) levels));
+        }
+
+        final float decay = (mLastFrameTimeMs < 0) ? 0 : mDecayPerSecond * (frameTimeMs - mLastFrameTimeMs) / 1000f;
+        mLastFrameTimeMs = frameTimeMs;
+
+        final float peak = Math.max(inPeak, Math.max(0, mPeak - decay));
+        final float rms = Math.max(inRms, Math.max(0, mRms - decay));
+        float hold = mPeakHold;
+        if (peak >= hold) {
+            hold = peak;
+            mPeakHoldUntilMs = frameTimeMs + mHoldTimeMs;
+        } else if (frameTimeMs >= mPeakHoldUntilMs) {
+            hold = Math.max(peak, hold - decay);
+        }
+
+        final boolean changed = (peak != mPeak) || (rms != mRms) || (hold != mPeakHold);
+        mPeak = peak;
+        mRms = rms;
+        mPeakHold = hold;
+        return changed;
+    }
+
+    /**
+     * @return true if levels were published since the previous {@link #update(long)}. Must be called from the reader thread.
+     */
+    public boolean hasNewLevels() {
+        return mPublished.get() != mReaderSequence;
+    }
+
+    /**
+     * @return true if nothing was published since the previous {@link #update(long)} and all display levels
+     * have decayed to zero, so further updates change nothing. Must be called from the reader thread.
+     */
+    public boolean isIdle() {
+        return mPeak == 0 && mRms == 0 && mPeakHold == 0 && !hasNewLevels();
+    }
+
+    private static float clampLevel(float level) {
+        // NaN from a broken audio block is treated as silence
+        return (level > 0) ? ((level < 1) ? level : 1) : 0;
+    }
+
+    /**
+     * Drops display levels. Must be called from the reader thread.
+     */
+    public void reset() {
+        mPeak = mRms = mPeakHold = 0;
+        mLastFrameTimeMs = -1;
+    }
+
+    public float getPeak() {
+        return mPeak;
+    }
+
+    public float getRms() {
+        return mRms;
+    }
+
+    public float getPeakHold() {
+        return mPeakHold;
+    }
+
+    /**
+     * @param holdTimeMs time the peak hold stays at the maximum before it starts to decay
+     */
+    public void setHoldTime(long holdTimeMs) {
+        if (holdTimeMs < 0) throw new IllegalArgumentException("Hold time must not be negative");
+        mHoldTimeMs = holdTimeMs;
+    }
+
+    public long getHoldTime() {
+        return mHoldTimeMs;
+    }
+
+    /**
+     * @param levelPerSecond fall rate of display levels in full scales per second
+     */
+    public void setDecayRate(float levelPerSecond) {
+        if (!(levelPerSecond > 0)) throw new IllegalArgumentException("Decay rate must be positive");
+        mDecayPerSecond = levelPerSecond;
+    }
+
+    public float getDecayRate() {
+        return mDecayPerSecond;
+    }
+}
@@ -0,0 +1,141 @@
+package com.alperez.widget.core;
+
+/**
+ * Collects rendering and input metrics of one seek bar into fixed-size histograms:
+ * <ul>
+ *     <li>onDraw() duration, in nanoseconds;</li>
+ *     <li>latency from a touch event to the next drawn frame, in milliseconds. The oldest not yet drawn event is used;</li>
+ *     <li>number of touch events handled per drawn frame (only frames which had input);</li>
+ *     <li>number of redraws per second, recorded once per full second of drawing;</li>
+ *     <li>area invalidated per drawn frame, in pixels (only frames which had invalidations reported).</li>
+ * </ul>
+ * Recording never allocates. A View does not touch the recorder at all when none is set.
+ *
+ * All methods including {@link #snapshot()} must be called from the UI thread.
+ */
+public final class MetricsRecorder {
+
+    private static final long RATE_WINDOW_MS = 1000;
+
+    private final Histogram mDrawDurationNanos = new Histogram();
+    private final Histogram mTouchToDrawLatencyMs = new Histogram();
+    private final Histogram mEventsPerFrame = new Histogram();
+    private final Histogram mRedrawsPerSecond = new Histogram();
+    private final Histogram mInvalidatedArea = new Histogram();
+
+    private int mPendingEvents;
+    private long mPendingInvalidatedArea;
+    private long mOldestPendingEventTimeMs;
+
+    private long mRateWindowStartMs = -1;
+    private int mRateWindowDraws;
+
+    /**
+     * @param eventTimeMs time of the event in the {@code SystemClock.uptimeMillis()} time base
+     */
+    public void onInputEvent(long eventTimeMs) {
+        if (mPendingEvents == 0 || eventTimeMs < mOldestPendingEventTimeMs) {
+            mOldestPendingEventTimeMs = eventTimeMs;
+        }
+        mPendingEvents ++;
+    }
+
+    /**
+     * Reports a rectangle passed to invalidate(). Overlapping rectangles of one frame are summed up.
+     */
+    public void onInvalidate(int width, int height) {
+        if (width > 0 && height > 0) {
+            mPendingInvalidatedArea += (long) width * height;
+        }
+    }
+
+    /**
+     * @param drawStartNanos {@code System.nanoTime()} at the start of onDraw()
+     * @param drawEndNanos {@code System.nanoTime()} at the end of onDraw()
+     * @param nowMs current time in the {@code SystemClock.uptimeMillis()} time base
+     */
+    public void onFrameDrawn(long drawStartNanos, long drawEndNanos, long nowMs) {
+        mDrawDurationNanos.record(drawEndNanos - drawStartNanos);
+
+        if (mPendingEvents > 0) {
+            mTouchToDrawLatencyMs.record(nowMs - mOldestPendingEventTimeMs);
+            mEventsPerFrame.record(mPendingEvents);
+            mPendingEvents = 0;
+        }
+
+        if (mPendingInvalidatedArea > 0) {
+            mInvalidatedArea.record(mPendingInvalidatedArea);
+            mPendingInvalidatedArea = 0;
+        }
+
+        if (mRateWindowStartMs < 0) {
+            mRateWindowStartMs = nowMs;
+        } else if (nowMs - mRateWindowStartMs >= RATE_WINDOW_MS) {
+            // Idle periods longer than the window are not counted as 0 redraws per second
+            if (nowMs - mRateWindowStartMs < 2 * RATE_WINDOW_MS) {
+                mRedrawsPerSecond.record(mRateWindowDraws);
+            }
+            mRateWindowStartMs = nowMs;
+            mRateWindowDraws = 0;
+        }
+        mRateWindowDraws ++;
+    }
+
+    public void reset() {
+        mDrawDurationNanos.reset();
+        mTouchToDrawLatencyMs.reset();
+        mEventsPerFrame.reset();
+        mRedrawsPerSecond.reset();
+        mInvalidatedArea.reset();
+        mPendingEvents = 0;
+        mPendingInvalidatedArea = 0;
+        mRateWindowStartMs = -1;
+        mRateWindowDraws = 0;
+    }
+
+    /**
+     * @return a copy of all collected data. This is the only method which allocates.
+     */
+    public Snapshot snapshot() {
+        final Snapshot s = new Snapshot();
+        mDrawDurationNanos.copyTo(s.drawDurationNanos);
+        mTouchToDrawLatencyMs.copyTo(s.touchToDrawLatencyMs);
+        mEventsPerFrame.copyTo(s.eventsPerFrame);
+        mRedrawsPerSecond.copyTo(s.redrawsPerSecond);
+        mInvalidatedArea.copyTo(s.invalidatedArea);
+        return s;
+    }
+
+    /**
+     * Point-in-time copy of recorded metrics. Is not affected by further recording.
+     */
+    public static final class Snapshot {
+        private final Histogram drawDurationNanos = new Histogram();
+        private final Histogram touchToDrawLatencyMs = new Histogram();
+        private final Histogram eventsPerFrame = new Histogram();
+        private final Histogram redrawsPerSecond = new Histogram();
+        private final Histogram invalidatedArea = new Histogram();
+
+        private Snapshot() {}
+
+        public Histogram getDrawDurationNanos() {
+            return drawDurationNanos;
+        }
+
+        public Histogram getTouchToDrawLatencyMs() {
+            return touchToDrawLatencyMs;
+        }
+
+        public Histogram getEventsPerFrame() {
+            return eventsPerFrame;
+        }
+
+        public Histogram getRedrawsPerSecond() {
+            return redrawsPerSecond;
+        }
+
+        public Histogram getInvalidatedArea() {
+            return invalidatedArea;
+        }
+    }
+}
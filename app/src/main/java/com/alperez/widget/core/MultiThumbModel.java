@@ -0,0 +1,225 @@
+package com.alperez.widget.core;
+
+import java.util.Arrays;
+
+/**
+ * Several thumbs on one track, e.g. low/high range selection or envelope handles.
+ * Values are kept in a sorted primitive array. Thumbs never cross each other and keep at least
+ * the minimum distance between neighbours. Hit-testing uses binary search, so it is O(log N).
+ *
+ * Value/pixel conversion, range, scale and step are taken from the track's {@link VerticalSeekBarModel}.
+ * Pixel positions are recalculated lazily when the track's geometry version changes, so a re-layout of
+ * the track needs no explicit call here.
+ */
+public final class MultiThumbModel {
+    // Tolerance of detent lookups in step units, same as in VerticalSeekBarModel.getStepCount()
+    private static final float STEP_TOLERANCE = 1e-4f;
+
+    private final VerticalSeekBarModel mTrack;
+
+    private float[] mValues = new float[0];
+    private float[] mPixelY = new float[0];
+    private int mPixelYVersion;
+    private int mCount;
+    private float mMinDistance;
+
+    public MultiThumbModel(VerticalSeekBarModel track) {
+        mTrack = track;
+    }
+
+    /**
+     * Replaces all thumbs. Values are sorted and constrained by the range and the minimum distance.
+     * Arrays are reallocated only if the number of thumbs grows.
+     */
+    public void setValues(float[] values) {
+        mCount = values.length;
+        if (mValues.length < mCount) {
+            mValues = new float[mCount];
+            mPixelY = new float[mCount];
+        }
+        System.arraycopy(values, 0, mValues, 0, mCount);
+        Arrays.sort(mValues, 0, mCount);
+        revalidate();
+    }
+
+    /**
+     * Minimum distance between neighbour thumbs in value units.
+     */
+    public void setMinDistance(float minDistance) {
+        if (minDistance < 0) throw new IllegalArgumentException("Minimum distance must not be negative");
+        mMinDistance = minDistance;
+        revalidate();
+    }
+
+    public float getMinDistance() {
+        return mMinDistance;
+    }
+
+    /**
+     * Re-applies the range, step and distance constraints and recalculates pixel positions.
+     * Must be called after range, scale or step change of the track.
+     */
+    public void revalidate() {
+        final float min = mTrack.getMin();
+        final float max = mTrack.getMax();
+        final boolean stepMode = mTrack.getStepSize() > 0;
+        for (int i = 0; i < mCount; i++) {
+            float v = mTrack.snapValue(mValues[i]);
+            if (i > 0 && v < mValues[i - 1] + mMinDistance) {
+                v = stepMode ? detentAtOrAbove(mValues[i - 1] + mMinDistance) : mValues[i - 1] + mMinDistance;
+            }
+            mValues[i] = (v < min) ? min : v;
+        }
+        // Thumbs pushed out of the range on the top are moved back down
+        for (int i = mCount - 1; i >= 0; i--) {
+            float v = mValues[i];
+            if (i < mCount - 1 && v > mValues[i + 1] - mMinDistance) {
+                v = stepMode ? detentAtOrBelow(mValues[i + 1] - mMinDistance) : mValues[i + 1] - mMinDistance;
+            }
+            mValues[i] = (v > max) ? max : v;
+        }
+        updatePixelPositions();
+    }
+
+    private void updatePixelPositions() {
+        if (!mTrack.isLaidOut()) return;
+        for (int i = 0; i < mCount; i++) {
+            mPixelY[i] = mTrack.getPixelForValue(mValues[i]);
+        }
+        mPixelYVersion = mTrack.getGeometryVersion();
+    }
+
+    private void syncPixelPositions() {
+        if (mPixelYVersion != mTrack.getGeometryVersion()) {
+            updatePixelPositions();
+        }
+    }
+
+    /**
+     * Finds the thumb nearest to the pixel position by binary search over values.
+     * Among thumbs stacked at the same value the one which can move towards the pointer is returned.
+     *
+     * @return thumb index or -1 if there are no thumbs
+     */
+    public int findNearest(float pixelY) {
+        if (mCount == 0) return -1;
+        syncPixelPositions();
+        final float value = mTrack.getValueForPixel(pixelY);
+        int insertion = Arrays.binarySearch(mValues, 0, mCount, value);
+        if (insertion < 0) insertion = -insertion - 1;
+
+        int nearest;
+        if (insertion >= mCount) {
+            nearest = mCount - 1;
+        } else if (insertion == 0) {
+            nearest = 0;
+        } else {
+            final float dBelow = Math.abs(mPixelY[insertion - 1] - pixelY);
+            final float dAbove = Math.abs(mPixelY[insertion] - pixelY);
+            nearest = (dBelow <= dAbove) ? insertion - 1 : insertion;
+        }
+
+        // Pixel Y grows downwards, while values grow upwards
+        final float stackedValue = mValues[nearest];
+        if (pixelY < mPixelY[nearest]) {
+            while (nearest < mCount - 1 && mValues[nearest + 1] == stackedValue) nearest++;
+        } else {
+            while (nearest > 0 && mValues[nearest - 1] == stackedValue) nearest--;
+        }
+        return nearest;
+    }
+
+    /**
+     * Moves a thumb to the pointer position, limited by its neighbours.
+     *
+     * @return true if the thumb's value has changed
+     */
+    public boolean moveThumb(int index, float pointerY) {
+        return setValue(index, mTrack.getValueForPixel(pointerY));
+    }
+
+    /**
+     * Sets a thumb's value, limited by the range and the neighbours. In step mode the value is snapped to
+     * the nearest detent between the neighbours.
+     *
+     * @return true if the value has changed
+     */
+    public boolean setValue(int index, float value) {
+        if (index < 0 || index >= mCount) throw new IndexOutOfBoundsException("Thumb index "+index+", count "+mCount);
+        final float lo = (index > 0) ? mValues[index - 1] + mMinDistance : mTrack.getMin();
+        final float hi = (index < mCount - 1) ? mValues[index + 1] - mMinDistance : mTrack.getMax();
+        if (value < lo) value = lo;
+        if (value > hi) value = hi;
+        if (mTrack.getStepSize() > 0) {
+            value = snapWithin(value, lo, hi);
+        }
+        if (value == mValues[index]) return false;
+        mValues[index] = value;
+        if (mTrack.isLaidOut()) {
+            syncPixelPositions();
+            mPixelY[index] = mTrack.getPixelForValue(value);
+        }
+        return true;
+    }
+
+    /**
+     * Snaps a value to the nearest detent. If that detent is beyond a bound, the nearest detent on the allowed
+     * side is taken instead. If there is no detent between the bounds, the distance constraint wins and
+     * the value is returned as is.
+     */
+    private float snapWithin(float value, float lo, float hi) {
+        float snapped = mTrack.snapValue(value);
+        if (snapped < lo) {
+            snapped = detentAtOrAbove(lo);
+        } else if (snapped > hi) {
+            snapped = detentAtOrBelow(hi);
+        }
+        return (snapped >= lo && snapped <= hi) ? snapped : value;
+    }
+
+    /**
+     * @return the lowest detent not below the value, or the max value
+     */
+    private float detentAtOrAbove(float value) {
+        final float min = mTrack.getMin();
+        final float max = mTrack.getMax();
+        final float step = mTrack.getStepSize();
+        if (value <= min) return min;
+        final float detent = min + (float) Math.ceil((value - min) / step - STEP_TOLERANCE) * step;
+        if (detent >= max) return max;
+        // A detent within the tolerance below the value is the value itself
+        return (detent < value) ? value : detent;
+    }
+
+    /**
+     * @return the highest detent not above the value. The max value is a detent as well.
+     */
+    private float detentAtOrBelow(float value) {
+        final float min = mTrack.getMin();
+        final float max = mTrack.getMax();
+        final float step = mTrack.getStepSize();
+        if (value >= max) return max;
+        final float detent = min + (float) Math.floor((value - min) / step + STEP_TOLERANCE) * step;
+        return (detent > value) ? value : detent;
+    }
+
+    public int getCount() {
+        return mCount;
+    }
+
+    public float getValue(int index) {
+        return mValues[index];
+    }
+
+    public float getPixelY(int index) {
+        syncPixelPositions();
+        return mPixelY[index];
+    }
+
+    /**
+     * Copies values of all thumbs, sorted ascending.
+     */
+    public void getValues(float[] dst) {
+        System.arraycopy(mValues, 0, dst, 0, mCount);
+    }
+}
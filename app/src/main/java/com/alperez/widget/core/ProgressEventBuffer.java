@@ -0,0 +1,184 @@
+package com.alperez.widget.core;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Single-producer/single-consumer ring buffer of (timestamp, value) pairs. The producer (normally the UI thread)
+ * is never blocked - when the buffer is full, the overflow policy decides which value is lost. The consumer
+ * (e.g. an audio or recorder thread) drains events in batches into its own primitive arrays.
+ *
+ * Events are stored in primitive arrays, so neither {@link #offer(long, float)} nor {@link #drain(long[], float[])}
+ * allocates anything.
+ *
+ * Each slot is guarded by a sequence number (even - written, odd - being written), so the consumer detects slots
+ * which were overwritten while it was reading them. A coalescing replacement keeps the sequence of the event,
+ * so every replacement is also announced through a separate counter.
+ */
+public final class ProgressEventBuffer {
+
+    /**
+     * When the buffer is full, a new event overwrites the oldest one. Overwritten events are counted as dropped.
+     */
+    public static final int OVERFLOW_DROP_OLDEST = 0;
+
+    /**
+     * When the buffer is full, a new event replaces the newest not yet consumed one. The consumer always gets
+     * the latest value, but intermediate ones are counted as dropped.
+     */
+    public static final int OVERFLOW_COALESCE = 1;
+
+    private final int mCapacity;
+    private final int mMask;
+    private final int mOverflowPolicy;
+
+    private final AtomicLongArray mSequence;
+    private final AtomicLongArray mTimestamps;
+    private final AtomicIntegerArray mValueBits;
+
+    // Index of the next event to write. Written by the producer only
+    private final AtomicLong mHead = new AtomicLong();
+    // Index of the next event to read. Written by the consumer only
+    private final AtomicLong mTail = new AtomicLong();
+    // Number of started in-place replacements of the newest event. Written by the producer only
+    private final AtomicLong mReplacements = new AtomicLong();
+    // Each side counts the events it drops, so neither of them updates a counter of the other one
+    private final AtomicLong mDroppedByProducer = new AtomicLong();
+    private final AtomicLong mDroppedByConsumer = new AtomicLong();
+
+    // Tests only. Runs on the consumer thread between reading an event and claiming it, to force interleavings
+    // with the producer. Always null otherwise.
+    Runnable mBeforeClaimHook;
+
+    /**
+     * @param capacity rounded up to a power of two
+     * @param overflowPolicy either {@link #OVERFLOW_DROP_OLDEST} or {@link #OVERFLOW_COALESCE}
+     */
+    public ProgressEventBuffer(int capacity, int overflowPolicy) {
+        if (capacity < 1 || capacity > (1 << 30)) throw new IllegalArgumentException("Capacity must be in range [1, 2^30]");
+        if (overflowPolicy != OVERFLOW_DROP_OLDEST && overflowPolicy != OVERFLOW_COALESCE)
+            throw new IllegalArgumentException("Unknown overflow policy - "+overflowPolicy);
+        int c = 1;
+        while (c < capacity) c <<= 1;
+        mCapacity = c;
+        mMask = c - 1;
+        mOverflowPolicy = overflowPolicy;
+        mSequence = new AtomicLongArray(c);
+        mTimestamps = new AtomicLongArray(c);
+        mValueBits = new AtomicIntegerArray(c);
+    }
+
+    /**
+     * Adds an event. Must be called from the producer thread only. Never blocks.
+     */
+    public void offer(long timestamp, float value) {
+        final long h = mHead.get();
+        if (mOverflowPolicy == OVERFLOW_COALESCE && h - mTail.get() >= mCapacity) {
+            final long newest = h - 1;
+            final int slot = (int) newest & mMask;
+            final long written = 2 * (newest + 1);
+            // Volatile writes, so a consumer which has read the old event either sees the replacement announced
+            // and reads again, or it has claimed the event before the tail check below
+            mReplacements.set(mReplacements.get() + 1);
+            mSequence.set(slot, written - 1);
+            if (mTail.get() <= newest) {
+                mTimestamps.lazySet(slot, timestamp);
+                mValueBits.lazySet(slot, Float.floatToRawIntBits(value));
+                mSequence.lazySet(slot, written);
+                mDroppedByProducer.lazySet(mDroppedByProducer.get() + 1);
+                return;
+            }
+            // The newest event was consumed meanwhile, so there is free space now. The slot is left intact.
+            mSequence.set(slot, written);
+        }
+
+        final int slot = (int) h & mMask;
+        final long written = 2 * (h + 1);
+        mSequence.lazySet(slot, written - 1);
+        mTimestamps.lazySet(slot, timestamp);
+        mValueBits.lazySet(slot, Float.floatToRawIntBits(value));
+        mSequence.lazySet(slot, written);
+        mHead.lazySet(h + 1);
+    }
+
+    /**
+     * Moves available events into the arrays, oldest first. Must be called from the consumer thread only.
+     *
+     * @return number of events copied, limited by the shorter array
+     */
+    public int drain(long[] timestamps, float[] values) {
+        final int max = Math.min(timestamps.length, values.length);
+        final long h = mHead.get();
+        long t = mTail.get();
+        if (h - t > mCapacity) {
+            // The producer has lapped the consumer
+            mDroppedByConsumer.lazySet(mDroppedByConsumer.get() + h - mCapacity - t);
+            t = h - mCapacity;
+        }
+
+        int n = 0;
+        for (; t < h && n < max; t++) {
+            final int slot = (int) t & mMask;
+            final long written = 2 * (t + 1);
+            for (;;) {
+                final long replacements = mReplacements.get();
+                final long seq = mSequence.get(slot);
+                if (seq > written) {
+                    // Overwritten by a newer lap
+                    mDroppedByConsumer.lazySet(mDroppedByConsumer.get() + 1);
+                    mTail.set(t + 1);
+                    break;
+                }
+                if (seq != written) continue;   // The producer is replacing this event right now
+                final long timestamp = mTimestamps.get(slot);
+                final int bits = mValueBits.get(slot);
+                if (mBeforeClaimHook != null) mBeforeClaimHook.run();
+                // Claim the event before re-checking, so a coalescing producer sees it as consumed
+                mTail.set(t + 1);
+                final long check = mSequence.get(slot);
+                if (check == seq && mReplacements.get() == replacements) {
+                    timestamps[n] = timestamp;
+                    values[n] = Float.intBitsToFloat(bits);
+                    n ++;
+                    break;
+                }
+                if (check > written) {
+                    mDroppedByConsumer.lazySet(mDroppedByConsumer.get() + 1);
+                    break;
+                }
+                // Replaced with a newer value while being read, or the newest event was replaced meanwhile
+                // (only when the buffer is full) - read it again
+            }
+        }
+        mTail.set(t);
+        return n;
+    }
+
+    /**
+     * Approximate number of events available to the consumer.
+     */
+    public int size() {
+        final long size = mHead.get() - mTail.get();
+        return (int) Math.max(0, Math.min(size, mCapacity));
+    }
+
+    public boolean isEmpty() {
+        return mHead.get() <= mTail.get();
+    }
+
+    /**
+     * Total number of events which were overwritten or coalesced before the consumer could read them.
+     */
+    public long getDroppedCount() {
+        return mDroppedByProducer.get() + mDroppedByConsumer.get();
+    }
+
+    public int getCapacity() {
+        return mCapacity;
+    }
+
+    public int getOverflowPolicy() {
+        return mOverflowPolicy;
+    }
+}
@@ -0,0 +1,82 @@
+package com.alperez.widget.core;
+
+/**
+ * Precomputed lookup tables of a {@link ValueScale} for a particular range and track length.
+ * Conversions are a table lookup plus linear interpolation. Table ends are exact, so min and max
+ * values always round-trip exactly.
+ *
+ * Tables are rebuilt on layout or range change only. Arrays are reused when their size is sufficient.
+ */
+public final class ScaleTable {
+    // The inverse table is denser, as steep scales compress many values into a few pixels
+    private static final int VALUE_SAMPLES_PER_PIXEL = 4;
+
+    private float[] mValueByPosition = new float[0];
+    private float[] mPositionByValue = new float[0];
+    private int mPositionSamples;
+    private int mValueSamples;
+    private float mMin;
+    private float mMax;
+    private float mInverseRange;
+
+    /**
+     * @param trackLength length of the track in pixels. Defines resolution of the tables.
+     */
+    public void build(ValueScale scale, float min, float max, float trackLength) {
+        scale.validateRange(min, max);
+        mMin = min;
+        mMax = max;
+        mInverseRange = 1f / (max - min);
+
+        mPositionSamples = Math.max(2, (int) Math.ceil(trackLength) + 1);
+        mValueSamples = Math.max(2, VALUE_SAMPLES_PER_PIXEL * (mPositionSamples - 1) + 1);
+        if (mValueByPosition.length < mPositionSamples) {
+            mValueByPosition = new float[mPositionSamples];
+        }
+        if (mPositionByValue.length < mValueSamples) {
+            mPositionByValue = new float[mValueSamples];
+        }
+
+        final int lastP = mPositionSamples - 1;
+        mValueByPosition[0] = min;
+        for (int i = 1; i < lastP; i++) {
+            mValueByPosition[i] = (float) scale.valueAt((double) i / lastP, min, max);
+        }
+        mValueByPosition[lastP] = max;
+
+        final int lastV = mValueSamples - 1;
+        mPositionByValue[0] = 0;
+        for (int j = 1; j < lastV; j++) {
+            mPositionByValue[j] = (float) scale.positionOf(min + (double) (max - min) * j / lastV, min, max);
+        }
+        mPositionByValue[lastV] = 1;
+    }
+
+    /**
+     * @param position normalized track position, must be in the range 0..1
+     */
+    public float valueAt(float position) {
+        return lookup(mValueByPosition, mPositionSamples, position);
+    }
+
+    /**
+     * @param value must be in the range min..max
+     * @return normalized track position
+     */
+    public float positionOf(float value) {
+        if (value <= mMin) return 0;
+        if (value >= mMax) return 1;
+        return lookup(mPositionByValue, mValueSamples, (value - mMin) * mInverseRange);
+    }
+
+    private static float lookup(float[] table, int samples, float x) {
+        final int last = samples - 1;
+        if (x <= 0) return table[0];
+        if (x >= 1) return table[last];
+        final float index = x * last;
+        final int i = (int) index;
+        if (i >= last) return table[last];
+        final float fraction = index - i;
+        return table[i] + (table[i + 1] - table[i]) * fraction;
+    }
+}
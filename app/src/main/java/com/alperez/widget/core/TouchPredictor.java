@@ -0,0 +1,84 @@
+package com.alperez.widget.core;
+
+/**
+ * Predicts the pointer position a short time ahead from the velocity of recent touch samples.
+ * Velocity is the least-squares slope over a fixed window of samples, so a single noisy sample
+ * does not make the prediction jump. Samples are kept in primitive arrays and nothing is allocated.
+ */
+public final class TouchPredictor {
+
+    public static final int WINDOW_SIZE = 8;
+
+    // Older samples do not describe the current motion
+    private static final long MAX_SAMPLE_AGE_MS = 64;
+
+    private final long[] mTimes = new long[WINDOW_SIZE];
+    private final float[] mPositions = new float[WINDOW_SIZE];
+    private int mCount;
+    private int mNewest = -1;
+
+    /**
+     * @param timeMs samples must come in non-decreasing order of time. A sample with the time of the previous
+     *               one replaces it.
+     */
+    public void addSample(long timeMs, float position) {
+        if (mCount > 0 && timeMs <= mTimes[mNewest]) {
+            mPositions[mNewest] = position;
+            return;
+        }
+        mNewest = (mNewest + 1) % WINDOW_SIZE;
+        mTimes[mNewest] = timeMs;
+        mPositions[mNewest] = position;
+        if (mCount < WINDOW_SIZE) mCount ++;
+    }
+
+    public void reset() {
+        mCount = 0;
+        mNewest = -1;
+    }
+
+    public boolean hasSamples() {
+        return mCount > 0;
+    }
+
+    /**
+     * @return time of the newest sample. Must not be called without samples.
+     */
+    public long getNewestSampleTime() {
+        if (mCount == 0) throw new IllegalStateException("No samples");
+        return mTimes[mNewest];
+    }
+
+    /**
+     * @return velocity in position units per millisecond, 0 if there are less than 2 recent samples
+     */
+    public float getVelocity() {
+        if (mCount < 2) return 0;
+        final long newestTime = mTimes[mNewest];
+        int n = 0;
+        double sumT = 0, sumP = 0, sumTT = 0, sumTP = 0;
+        for (int k = 0, i = mNewest; k < mCount; k++, i = (i + WINDOW_SIZE - 1) % WINDOW_SIZE) {
+            final long age = newestTime - mTimes[i];
+            if (age > MAX_SAMPLE_AGE_MS) break;
+            final double t = -age;
+            final double p = mPositions[i];
+            sumT += t;
+            sumP += p;
+            sumTT += t * t;
+            sumTP += t * p;
+            n ++;
+        }
+        if (n < 2) return 0;
+        final double denominator = n * sumTT - sumT * sumT;
+        return (denominator == 0) ? 0 : (float) ((n * sumTP - sumT * sumP) / denominator);
+    }
+
+    /**
+     * @param lookaheadMs time ahead of the newest sample
+     * @return predicted position, or the newest one if velocity is not known. Must not be called without samples.
+     */
+    public float predict(long lookaheadMs) {
+        if (mCount == 0) throw new IllegalStateException("No samples");
+        return mPositions[mNewest] + getVelocity() * lookaheadMs;
+    }
+}
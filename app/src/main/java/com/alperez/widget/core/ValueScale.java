@@ -0,0 +1,152 @@
+package com.alperez.widget.core;
+
+/**
+ * Mapping between a normalized position on the track (0 - bottom, 1 - top) and a value of the [min, max] range.
+ * Implementations may use expensive math. It is evaluated only when a {@link ScaleTable} is built,
+ * never per touch event.
+ */
+public abstract class ValueScale {
+
+    /**
+     * Linear mapping. Seek bars convert linear values directly, without lookup tables.
+     */
+    public static final ValueScale LINEAR = new ValueScale() {
+        @Override
+        public double valueAt(double position, double min, double max) {
+            return min + (max - min) * position;
+        }
+
+        @Override
+        public double positionOf(double value, double min, double max) {
+            return (value - min) / (max - min);
+        }
+    };
+
+    /**
+     * @param position normalized track position in the range 0..1
+     * @return value in the range min..max
+     */
+    public abstract double valueAt(double position, double min, double max);
+
+    /**
+     * Inverse of the {@link #valueAt(double, double, double)}.
+     *
+     * @param value value in the range min..max
+     * @return normalized track position in the range 0..1
+     */
+    public abstract double positionOf(double value, double min, double max);
+
+    /**
+     * Checks if the range is supported by this scale.
+     *
+     * @throws IllegalArgumentException if the range can not be used with this scale
+     */
+    public void validateRange(float min, float max) {
+        // All ranges are valid by default
+    }
+
+
+    /**
+     * Logarithmic scale - equal track distances correspond to equal value ratios.
+     * Suitable for frequencies or linear gain factors. Requires a positive range.
+     */
+    public static ValueScale logarithmic() {
+        return new ValueScale() {
+            @Override
+            public double valueAt(double position, double min, double max) {
+                return min * Math.pow(max / min, position);
+            }
+
+            @Override
+            public double positionOf(double value, double min, double max) {
+                return Math.log(value / min) / Math.log(max / min);
+            }
+
+            @Override
+            public void validateRange(float min, float max) {
+                if (min <= 0) throw new IllegalArgumentException("Logarithmic scale requires positive range");
+            }
+        };
+    }
+
+    /**
+     * Audio fader law for values in decibels - track position is proportional to the linear amplitude
+     * 10^(dB/20). The upper part of the track gets fine resolution, while low levels are compressed.
+     */
+    public static ValueScale decibel() {
+        return new ValueScale() {
+            @Override
+            public double valueAt(double position, double min, double max) {
+                final double aMin = dbToAmplitude(min);
+                final double aMax = dbToAmplitude(max);
+                return 20.0 * Math.log10(aMin + (aMax - aMin) * position);
+            }
+
+            @Override
+            public double positionOf(double value, double min, double max) {
+                final double aMin = dbToAmplitude(min);
+                return (dbToAmplitude(value) - aMin) / (dbToAmplitude(max) - aMin);
+            }
+
+            private double dbToAmplitude(double db) {
+                return Math.pow(10.0, db / 20.0);
+            }
+        };
+    }
+
+    /**
+     * Exponential scale. Positive curvature gives fine resolution at the bottom of the track,
+     * negative - at the top. Curvature 0 is linear.
+     */
+    public static ValueScale exponential(final double curvature) {
+        if (curvature == 0) return LINEAR;
+        return new ValueScale() {
+            private final double denominator = Math.expm1(curvature);
+
+            @Override
+            public double valueAt(double position, double min, double max) {
+                return min + (max - min) * Math.expm1(curvature * position) / denominator;
+            }
+
+            @Override
+            public double positionOf(double value, double min, double max) {
+                return Math.log1p(denominator * (value - min) / (max - min)) / curvature;
+            }
+        };
+    }
+
+    /**
+     * Piecewise-linear scale defined by breakpoints. Both arrays contain normalized values in the range 0..1,
+     * must be strictly increasing, start with 0 and end with 1. Value fractions are relative to the min..max range.
+     */
+    public static ValueScale piecewiseLinear(float[] positions, float[] valueFractions) {
+        final int n = positions.length;
+        if (n < 2 || n != valueFractions.length)
+            throw new IllegalArgumentException("At least 2 breakpoints of equal number of positions and values are required");
+        if (positions[0] != 0 || valueFractions[0] != 0 || positions[n - 1] != 1 || valueFractions[n - 1] != 1)
+            throw new IllegalArgumentException("Breakpoints must start at 0 and end at 1");
+        for (int i = 1; i < n; i++) {
+            if (positions[i] <= positions[i - 1] || valueFractions[i] <= valueFractions[i - 1])
+                throw new IllegalArgumentException("Breakpoints must be strictly increasing");
+        }
+        final float[] p = positions.clone();
+        final float[] v = valueFractions.clone();
+        return new ValueScale() {
+            @Override
+            public double valueAt(double position, double min, double max) {
+                return min + (max - min) * interpolate(p, v, position);
+            }
+
+            @Override
+            public double positionOf(double value, double min, double max) {
+                return interpolate(v, p, (value - min) / (max - min));
+            }
+
+            private double interpolate(float[] xs, float[] ys, double x) {
+                int i = 1;
+                while (i < xs.length - 1 && x > xs[i]) i++;
+                return ys[i - 1] + (ys[i] - ys[i - 1]) * (x - xs[i - 1]) / (xs[i] - xs[i - 1]);
+            }
+        };
+    }
+}
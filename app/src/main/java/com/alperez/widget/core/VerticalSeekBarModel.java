@@ -0,0 +1,420 @@
+package com.alperez.widget.core;
+
+/**
+ * Geometry and progress model of the {@link com.alperez.widget.VerticalSeekBar}.
+ * This class keeps all the layout math (content area, touchable area, thumb bounds)
+ * and the pixel-to-value conversion. It has no dependencies on the Android framework, so it can
+ * be used, benchmarked and tested on a plain JVM.
+ */
+public final class VerticalSeekBarModel {
+    // Sizes of content items
+    private int mThumbSize = 25;
+    private float mThumbSizeHalf = 12.5f;
+    private int mPreferredTouchableAreaWidth;
+
+    // Cached values of paddings
+    private int paddingLeft;
+    private int paddingTop;
+    private int paddingRight;
+    private int paddingBottom;
+
+    // Size and start position of content area regarding to View's size and paddings.
+    private int viewWidth;
+    private int viewHeight;
+    private int contentAreaStartX;
+    private int contentAreaStartY;
+    private int contentAreaWidth;
+    private int contentAreaHeight;
+    private float contentAreaCenterHorizontal;
+    private float thumbPositionYTop;
+    private float thumbPositionYBot;
+    private float touchAreaStartX;
+    private float touchAreaEndX;
+
+    //----  Real progress values  ----
+    private float mMin = 0;
+    private float mMax = 100f;
+    private float mProgress = 50f;
+
+    private float mPixelYPosition;
+
+    //----  Value scale. Tables are used for nonlinear scales only  ----
+    private ValueScale mScale = ValueScale.LINEAR;
+    private final ScaleTable mScaleTable = new ScaleTable();
+
+    //----  Step (detent) mode. Step 0 means continuous values  ----
+    private float mStepSize;
+    private float mInverseStepSize;
+
+    private boolean wasLayout;
+    // Changes whenever the value/pixel mapping changes, so models which cache pixel positions can update lazily
+    private int mGeometryVersion;
+
+
+    /*********************************  Configuration  ********************************************/
+
+    public void setThumbSize(int thumbSize) {
+        mThumbSize = thumbSize;
+        mThumbSizeHalf = (float) thumbSize / 2f;
+        if (wasLayout) {
+            layout(viewWidth, viewHeight);
+        }
+    }
+
+    public void setPreferredTouchableAreaWidth(int width) {
+        mPreferredTouchableAreaWidth = width;
+        updateTouchableAreaYBounds();
+    }
+
+    public void setPadding(int left, int top, int right, int bottom) {
+        paddingLeft = left;
+        paddingTop = top;
+        paddingRight = right;
+        paddingBottom = bottom;
+        if (wasLayout) {
+            layout(viewWidth, viewHeight);
+        }
+    }
+
+    /**
+     * Recalculates all geometry for the new view size. After this call the model is treated as laid out.
+     */
+    public void layout(int viewWidth, int viewHeight) {
+        this.viewWidth = viewWidth;
+        this.viewHeight = viewHeight;
+        wasLayout = true;
+        mGeometryVersion ++;
+        updateContentAreaSize(viewWidth, viewHeight);
+        updateTouchableAreaYBounds();
+        updateScaleTable();
+        updateYPixelPositionByProgress();
+    }
+
+    public boolean isLaidOut() {
+        return wasLayout;
+    }
+
+    /**
+     * The version is changed by every layout (including padding and thumb size changes of a laid out model),
+     * range and scale change.
+     */
+    public int getGeometryVersion() {
+        return mGeometryVersion;
+    }
+
+    public int getViewWidth() {
+        return viewWidth;
+    }
+
+    public int getViewHeight() {
+        return viewHeight;
+    }
+
+    public int getMinimumWidth() {
+        return mThumbSize + paddingLeft + paddingRight;
+    }
+
+    public int getMinimumHeight() {
+        return 5*mThumbSize + paddingTop + paddingBottom;
+    }
+
+    private void updateContentAreaSize(int viewWidth, int viewHeight) {
+        contentAreaStartX = paddingLeft;
+        contentAreaStartY = paddingTop;
+        contentAreaWidth = viewWidth - paddingLeft - paddingRight;
+        if (contentAreaWidth < 0) contentAreaWidth = 0;
+        contentAreaHeight = viewHeight - paddingTop - paddingBottom;
+        if (contentAreaHeight < 0) contentAreaHeight = 0;
+        contentAreaCenterHorizontal = (float)(2*contentAreaStartX + contentAreaWidth) / 2f;
+
+        thumbPositionYTop = contentAreaStartY + mThumbSizeHalf;
+        thumbPositionYBot = contentAreaStartY + contentAreaHeight - mThumbSizeHalf;
+    }
+
+    private void updateTouchableAreaYBounds() {
+        if (mPreferredTouchableAreaWidth < mThumbSize) {
+            touchAreaStartX = contentAreaCenterHorizontal - mThumbSizeHalf;
+            touchAreaEndX = touchAreaStartX + mThumbSize;
+        } else {
+            touchAreaStartX = contentAreaCenterHorizontal - (float)mPreferredTouchableAreaWidth / 2f;
+            touchAreaEndX = touchAreaStartX + mPreferredTouchableAreaWidth;
+
+            // Check that touchable area not exceeds paddings
+            if (touchAreaStartX < contentAreaStartX) {
+                touchAreaStartX = contentAreaStartX;
+            }
+            if (touchAreaEndX > (contentAreaStartX + contentAreaWidth)) {
+                touchAreaEndX = contentAreaStartX + contentAreaWidth;
+            }
+        }
+    }
+
+
+    /*********************************  Hit-testing  **********************************************/
+
+    /**
+     * Checks if a touch point hits either the touchable strip along the bar or the area around the thumb,
+     * which spans the whole content width.
+     */
+    public boolean isTouchValid(float touchX, float touchY) {
+        return isTouchValid(touchX, touchY, mPixelYPosition);
+    }
+
+    /**
+     * The same as {@link #isTouchValid(float, float)}, but for a thumb at the given position. This allows
+     * to share one geometry model between several tracks of the same size.
+     */
+    public boolean isTouchValid(float touchX, float touchY, float thumbPixelY) {
+        if ((touchX >= touchAreaStartX) && (touchX < touchAreaEndX)) {
+            if ((touchY >= contentAreaStartY) && (touchY < contentAreaStartY + contentAreaHeight)) {
+                return true;
+            }
+        }
+
+        final float halfContentWidth = (float)contentAreaWidth / 2f;
+        float minY = thumbPixelY - halfContentWidth;
+        if (minY < contentAreaStartY) minY = contentAreaStartY;
+        float maxY = thumbPixelY + halfContentWidth;
+        if (maxY >= contentAreaStartY+contentAreaHeight) maxY = contentAreaStartY+contentAreaHeight;
+        if ((touchY >= minY) && (touchY < maxY)) {
+            if ((touchX >= contentAreaStartX) && (touchX < contentAreaStartX+contentAreaWidth)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+
+    /*********************************  Pixel <-> value conversion  ******************************/
+
+    /**
+     * Moves the thumb to the pointer position (limited by the thumb bounds) and updates progress accordingly.
+     */
+    public void setThumbPixelPosition(float pointerY) {
+        mProgress = getValueForPixel(pointerY);
+        // In step mode the thumb jumps between detents
+        mPixelYPosition = (mStepSize > 0) ? getPixelForValue(mProgress) : clampPixelY(pointerY);
+    }
+
+    /**
+     * Converts a pixel position to a value with the current range, scale and step. Does not change the model.
+     */
+    public float getValueForPixel(float pixelY) {
+        final float y = clampPixelY(pixelY);
+        final float value;
+        if (mScale == ValueScale.LINEAR) {
+            value = pixelToValue(y, mMin, mMax);
+        } else {
+            value = mScaleTable.valueAt((thumbPositionYBot - y) / (thumbPositionYBot - thumbPositionYTop));
+        }
+        return snapValue(value);
+    }
+
+    /**
+     * Enables step mode - progress always snaps to min + N*step. The max value is always reachable,
+     * even if the range is not a multiple of the step.
+     *
+     * @param step step size, 0 for continuous values
+     */
+    public void setStepSize(float step) {
+        if (step < 0) throw new IllegalArgumentException("Step size must not be negative");
+        mStepSize = step;
+        mInverseStepSize = (step > 0) ? 1f / step : 0;
+        setProgress(mProgress);
+    }
+
+    public float getStepSize() {
+        return mStepSize;
+    }
+
+    /**
+     * @return number of steps within the range, or 0 in continuous mode
+     */
+    public int getStepCount() {
+        return (mStepSize > 0) ? (int) Math.ceil((mMax - mMin) * mInverseStepSize - 1e-4f) : 0;
+    }
+
+    /**
+     * Snaps a value to the nearest step in O(1). In continuous mode the value is returned as is.
+     */
+    public float snapValue(float value) {
+        if (mStepSize <= 0) return value;
+        float snapped = mMin + Math.round((value - mMin) * mInverseStepSize) * mStepSize;
+        if (snapped > mMax) snapped = mMax;
+        // The max value is a detent as well, even if the range is not a multiple of the step
+        return (mMax - value < Math.abs(value - snapped)) ? mMax : snapped;
+    }
+
+    /**
+     * Converts a value to the pixel position on the track with the current range and scale.
+     */
+    public float getPixelForValue(float value) {
+        if (mScale == ValueScale.LINEAR) {
+            return valueToPixel(value, mMin, mMax);
+        } else {
+            return thumbPositionYBot - (thumbPositionYBot - thumbPositionYTop) * mScaleTable.positionOf(value);
+        }
+    }
+
+    /**
+     * Sets the mapping between thumb position and progress value. Nonlinear scales are evaluated into lookup tables
+     * on layout and range changes only.
+     */
+    public void setScale(ValueScale scale) {
+        if (scale == null) throw new IllegalArgumentException("Scale must not be null");
+        scale.validateRange(mMin, mMax);
+        mScale = scale;
+        mGeometryVersion ++;
+        updateScaleTable();
+        updateYPixelPositionByProgress();
+    }
+
+    public ValueScale getScale() {
+        return mScale;
+    }
+
+    private void updateScaleTable() {
+        if (wasLayout && mScale != ValueScale.LINEAR) {
+            mScaleTable.build(mScale, mMin, mMax, thumbPositionYBot - thumbPositionYTop);
+        }
+    }
+
+    public float clampPixelY(float pixelY) {
+        if (pixelY < thumbPositionYTop) {
+            return thumbPositionYTop;
+        }  else if (pixelY > thumbPositionYBot) {
+            return thumbPositionYBot;
+        } else {
+            return pixelY;
+        }
+    }
+
+    /**
+     * Converts pixel position on the track to a value of the given range with the linear scale.
+     * The position must be already clamped.
+     */
+    public float pixelToValue(float pixelY, float min, float max) {
+        final float pxProgress = thumbPositionYBot - pixelY;
+        return min + (max - min) * pxProgress / (thumbPositionYBot - thumbPositionYTop);
+    }
+
+    /**
+     * Converts a value of the given range to pixel position on the track with the linear scale.
+     */
+    public float valueToPixel(float value, float min, float max) {
+        return thumbPositionYBot - (thumbPositionYBot - thumbPositionYTop) * (value - min) / (max - min);
+    }
+
+
+    /*********************************  Progress  *************************************************/
+
+    public void setProgress(float progress) {
+        progress = snapValue(progress);
+        if (progress > mMax) {
+            mProgress = mMax;
+        } else if (progress < mMin) {
+            mProgress = mMin;
+        } else {
+            mProgress = progress;
+        }
+        updateYPixelPositionByProgress();
+    }
+
+    public void setRange(float min, float max) {
+        if (min >= max) throw new IllegalArgumentException("Min value must be less then Max value");
+        mScale.validateRange(min, max);
+        mMin = min;
+        mMax = max;
+        mGeometryVersion ++;
+        mProgress = snapValue(mProgress);
+        if (mProgress < mMin) {
+            mProgress = mMin;
+        } else if (mProgress > mMax) {
+            mProgress = mMax;
+        }
+        updateScaleTable();
+        updateYPixelPositionByProgress();
+    }
+
+    public void updateYPixelPositionByProgress() {
+        if (wasLayout) {
+            mPixelYPosition = getPixelForValue(mProgress);
+        }
+    }
+
+    public float getProgress() {
+        return mProgress;
+    }
+
+    public float getMin() {
+        return mMin;
+    }
+
+    public float getMax() {
+        return mMax;
+    }
+
+    public float getPixelYPosition() {
+        return mPixelYPosition;
+    }
+
+
+    /*********************************  Geometry getters  *****************************************/
+
+    public int getThumbSize() {
+        return mThumbSize;
+    }
+
+    public float getThumbSizeHalf() {
+        return mThumbSizeHalf;
+    }
+
+    public int getPreferredTouchableAreaWidth() {
+        return mPreferredTouchableAreaWidth;
+    }
+
+    public int getContentAreaStartX() {
+        return contentAreaStartX;
+    }
+
+    public int getContentAreaStartY() {
+        return contentAreaStartY;
+    }
+
+    public int getContentAreaWidth() {
+        return contentAreaWidth;
+    }
+
+    public int getContentAreaHeight() {
+        return contentAreaHeight;
+    }
+
+    public int getContentAreaEndX() {
+        return contentAreaStartX + contentAreaWidth;
+    }
+
+    public int getContentAreaEndY() {
+        return contentAreaStartY + contentAreaHeight;
+    }
+
+    public float getContentAreaCenterHorizontal() {
+        return contentAreaCenterHorizontal;
+    }
+
+    public float getThumbPositionYTop() {
+        return thumbPositionYTop;
+    }
+
+    public float getThumbPositionYBot() {
+        return thumbPositionYBot;
+    }
+
+    public float getTouchAreaStartX() {
+        return touchAreaStartX;
+    }
+
+    public float getTouchAreaEndX() {
+        return touchAreaEndX;
+    }
+}
@@ -0,0 +1,48 @@
+package com.alperez.widget;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Upper limits of per-frame costs, checked in under src/test/baselines. A value above its limit fails the test.
+ * When a change makes something cheaper, the limit is lowered in the same commit, so it cannot creep back.
+ *
+ * Paths are relative to the module directory, which is the working directory of Gradle test tasks.
+ */
+final class Baselines {
+    private final String mFileName;
+    private final Properties mLimits = new Properties();
+
+    private Baselines(String fileName) {
+        mFileName = fileName;
+    }
+
+    static Baselines load(String fileName) {
+        final Baselines b = new Baselines(fileName);
+        try {
+            InputStream in = new FileInputStream(new File("src/test/baselines", fileName));
+            try {
+                b.mLimits.load(in);
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to read baselines "+fileName, e);
+        }
+        return b;
+    }
+
+    void assertWithin(String key, long actual) {
+        final String limit = mLimits.getProperty(key);
+        if (limit == null) {
+            fail("No baseline for "+key+" in "+mFileName+", the current value is "+actual);
+        }
+        assertTrue(key+" = "+actual+" exceeds the baseline "+limit, actual <= Long.parseLong(limit.trim()));
+    }
+}
@@ -0,0 +1,170 @@
+package com.alperez.widget;
+
+import android.view.MotionEvent;
+import android.view.View;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Runs a seek bar frame by frame without a window. In every frame a script step is applied (touch events
+ * are dispatched to onTouchEvent, or the bar is changed programmatically), then a layout pass is made if
+ * it was requested, then the bar draws into a {@link RecordingCanvas}.
+ *
+ * Statistics of each frame are written into preallocated records, so the runner itself allocates nothing
+ * between the frames. Bytes allocated by Robolectric for framework calls are measured by a {@link ShadowCostMeter}
+ * and subtracted, so the allocated bytes of a frame are those of the seek bar.
+ */
+final class FrameRunner {
+
+    interface Script {
+        void onFrame(RecordingSeekBar bar, int frame);
+    }
+
+    static final class Frame {
+        int drawOps;
+        long allocatedBytes;
+        int invalidationCount;
+        long invalidatedArea;
+        int dirtyTop;
+        int dirtyBottom;
+        int requestLayoutCount;
+        int layoutCount;
+        float progress;
+        float thumbCenterY;
+        float selectedBarTopY;
+    }
+
+    private static final com.sun.management.ThreadMXBean THREADS = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static final int WARM_UP_RUNS = Integer.getInteger("frames.warmUpRuns", 20);
+    private static final int MEASURED_RUNS = Integer.getInteger("frames.measuredRuns", 5);
+
+    private final RecordingSeekBar mBar;
+    private final RecordingCanvas mCanvas = new RecordingCanvas();
+    private final int mWidth;
+    private final int mHeight;
+    private final long mMeasurementOverhead;
+    private final ShadowCostMeter mShadowCost;
+
+    FrameRunner(RecordingSeekBar bar, int width, int height) {
+        if (!THREADS.isThreadAllocatedMemorySupported()) throw new IllegalStateException("The JVM does not count allocated memory per thread");
+        THREADS.setThreadAllocatedMemoryEnabled(true);
+        mBar = bar;
+        mWidth = width;
+        mHeight = height;
+        mMeasurementOverhead = measureOverhead();
+        mShadowCost = ShadowCostMeter.install();
+        drawFrame();
+    }
+
+    /**
+     * Makes a layout pass if it was requested and draws the bar once, without statistics.
+     *
+     * @return the canvas the bar was drawn into
+     */
+    RecordingCanvas drawFrame() {
+        mCanvas.reset();
+        layoutIfRequested();
+        mBar.onDraw(mCanvas);
+        return mCanvas;
+    }
+
+    private static long allocatedBytes() {
+        return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Reading of the counter allocates by itself on some JVMs.
+     */
+    private static long measureOverhead() {
+        long min = Long.MAX_VALUE;
+        for (int i = 0; i < 16; i++) {
+            final long start = allocatedBytes();
+            min = Math.min(min, allocatedBytes() - start);
+        }
+        return min;
+    }
+
+    private void layoutIfRequested() {
+        if (mBar.isLayoutRequested()) {
+            mBar.measure(View.MeasureSpec.makeMeasureSpec(mWidth, View.MeasureSpec.EXACTLY),
+                    View.MeasureSpec.makeMeasureSpec(mHeight, View.MeasureSpec.EXACTLY));
+            mBar.layout(0, 0, mWidth, mHeight);
+        }
+    }
+
+    /**
+     * Runs the script several times. The first runs warm up caches and the JIT. Allocated bytes of a frame
+     * are the minimum of the measured runs, the other statistics are taken from the last run.
+     */
+    Frame[] run(Script script, int frameCount) {
+        final Frame[] frames = new Frame[frameCount];
+        for (int i = 0; i < frameCount; i++) {
+            frames[i] = new Frame();
+            frames[i].allocatedBytes = Long.MAX_VALUE;
+        }
+        for (int r = 0; r < WARM_UP_RUNS; r++) {
+            runFrames(script, frames, false);
+        }
+        for (int r = 0; r < MEASURED_RUNS; r++) {
+            runFrames(script, frames, true);
+        }
+        return frames;
+    }
+
+    private void runFrames(Script script, Frame[] frames, boolean measured) {
+        for (int i = 0; i < frames.length; i++) {
+            final Frame f = frames[i];
+            mBar.resetCounters();
+            mCanvas.reset();
+            final long shadowStart = mShadowCost.getBytes();
+            final long start = allocatedBytes();
+            script.onFrame(mBar, i);
+            layoutIfRequested();
+            mBar.onDraw(mCanvas);
+            final long end = allocatedBytes();
+            final long shadowBytes = mShadowCost.getBytes() - shadowStart;
+            if (!measured) continue;
+            f.allocatedBytes = Math.min(f.allocatedBytes, Math.max(0, end - start - shadowBytes - mMeasurementOverhead));
+            f.drawOps = mCanvas.drawOps;
+            f.invalidationCount = mBar.invalidationCount;
+            f.invalidatedArea = mBar.invalidatedArea;
+            f.dirtyTop = mBar.dirtyTop;
+            f.dirtyBottom = mBar.dirtyBottom;
+            f.requestLayoutCount = mBar.requestLayoutCount;
+            f.layoutCount = mBar.layoutCount;
+            f.progress = mBar.getProgress();
+            f.thumbCenterY = mCanvas.lastBitmapCenterY;
+            f.selectedBarTopY = mCanvas.lastLineStartY;
+        }
+    }
+
+    /**
+     * One event per frame. Events are obtained up front, so dispatching them allocates nothing.
+     */
+    static Script touches(final MotionEvent[] events) {
+        return new Script() {
+            @Override
+            public void onFrame(RecordingSeekBar bar, int frame) {
+                bar.onTouchEvent(events[frame]);
+            }
+        };
+    }
+
+    /**
+     * A drag of one pointer: down at the first position, a move to each of the others, then up at the last one.
+     *
+     * @return events for positions.length + 1 frames
+     */
+    static MotionEvent[] drag(float x, float[] positions, long frameTimeMs) {
+        final MotionEvent[] events = new MotionEvent[positions.length + 1];
+        final long downTime = 1000;
+        events[0] = MotionEvent.obtain(downTime, downTime, MotionEvent.ACTION_DOWN, x, positions[0], 0);
+        for (int i = 1; i < positions.length; i++) {
+            events[i] = MotionEvent.obtain(downTime, downTime + i * frameTimeMs, MotionEvent.ACTION_MOVE, x, positions[i], 0);
+        }
+        final int last = positions.length;
+        events[last] = MotionEvent.obtain(downTime, downTime + last * frameTimeMs, MotionEvent.ACTION_UP, x, positions[last - 1], 0);
+        return events;
+    }
+}
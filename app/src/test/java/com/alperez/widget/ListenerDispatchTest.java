@@ -0,0 +1,168 @@
+package com.alperez.widget;
+
+import android.app.Activity;
+import android.view.MotionEvent;
+import android.view.ViewGroup;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * In the coalesced mode user's changes must reach the listener once per frame with the latest value, while
+ * the every-sample mode delivers each change as it happens.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 21)
+public class ListenerDispatchTest {
+    private static final int WIDTH = 60;
+    private static final int HEIGHT = 400;
+    private static final int THUMB_SIZE = 30;
+    private static final float TOP = THUMB_SIZE / 2f;
+    private static final float BOTTOM = HEIGHT - THUMB_SIZE / 2f;
+    private static final float DELTA = 1e-3f;
+
+    private final List<Float> mProgressCalls = new ArrayList<Float>();
+    private final List<Float> mThumbCalls = new ArrayList<Float>();
+    private VerticalSeekBar mBar;
+
+    @Before
+    public void setUp() {
+        final Activity activity = Robolectric.setupActivity(Activity.class);
+        mBar = new VerticalSeekBar(activity);
+        mBar.setElementsSize(THUMB_SIZE, 4, 8);
+        activity.setContentView(mBar, new ViewGroup.LayoutParams(WIDTH, HEIGHT));
+        mBar.layout(0, 0, WIDTH, HEIGHT);
+        mBar.setOnProgressChangeListener(new VerticalSeekBar.OnProgressChangeListener() {
+            @Override
+            public void onProgressChanged(VerticalSeekBar seekBar, float progress, boolean fromUser) {
+                if (fromUser) mProgressCalls.add(progress);
+            }
+        });
+        mBar.setOnThumbValueChangeListener(new VerticalSeekBar.OnThumbValueChangeListener() {
+            @Override
+            public void onThumbValueChanged(VerticalSeekBar seekBar, int thumbIndex, float value, boolean fromUser) {
+                if (fromUser) mThumbCalls.add(value);
+            }
+        });
+        // Frame callbacks run only when the test lets them
+        ShadowLooper.pauseMainLooper();
+    }
+
+    @After
+    public void tearDown() {
+        ShadowLooper.unPauseMainLooper();
+    }
+
+    private void touch(int action, float y) {
+        mBar.onTouchEvent(MotionEvent.obtain(0, 0, action, WIDTH / 2f, y, 0));
+    }
+
+    private static float progressAt(float y) {
+        return (BOTTOM - y) / (BOTTOM - TOP) * 100f;
+    }
+
+    private static void runFrame() {
+        ShadowLooper.runUiThreadTasks();
+    }
+
+    @Test
+    public void coalescedModeDeliversLatestValueOncePerFrame() {
+        touch(MotionEvent.ACTION_DOWN, 200);
+        touch(MotionEvent.ACTION_MOVE, 150);
+        touch(MotionEvent.ACTION_MOVE, 100);
+        assertEquals("Listener was called before the frame", 0, mProgressCalls.size());
+
+        runFrame();
+        assertEquals(1, mProgressCalls.size());
+        assertEquals(progressAt(100), mProgressCalls.get(0), DELTA);
+
+        // Nothing changed, nothing is delivered
+        runFrame();
+        assertEquals(1, mProgressCalls.size());
+
+        touch(MotionEvent.ACTION_MOVE, 80);
+        touch(MotionEvent.ACTION_MOVE, 60);
+        runFrame();
+        assertEquals(2, mProgressCalls.size());
+        assertEquals(progressAt(60), mProgressCalls.get(1), DELTA);
+    }
+
+    @Test
+    public void coalescedModeDeliversPendingValueWhenTouchEnds() {
+        touch(MotionEvent.ACTION_DOWN, 200);
+        touch(MotionEvent.ACTION_MOVE, 120);
+        touch(MotionEvent.ACTION_UP, 120);
+        assertEquals(1, mProgressCalls.size());
+        assertEquals(progressAt(120), mProgressCalls.get(0), DELTA);
+
+        runFrame();
+        assertEquals(1, mProgressCalls.size());
+    }
+
+    @Test
+    public void everySampleModeDeliversEachChangeImmediately() {
+        mBar.setListenerDispatchMode(VerticalSeekBar.DISPATCH_EVERY_SAMPLE);
+        touch(MotionEvent.ACTION_DOWN, 200);
+        touch(MotionEvent.ACTION_MOVE, 150);
+        touch(MotionEvent.ACTION_MOVE, 100);
+        assertEquals(3, mProgressCalls.size());
+        assertEquals(progressAt(200), mProgressCalls.get(0), DELTA);
+        assertEquals(progressAt(150), mProgressCalls.get(1), DELTA);
+        assertEquals(progressAt(100), mProgressCalls.get(2), DELTA);
+
+        runFrame();
+        assertEquals(3, mProgressCalls.size());
+    }
+
+    @Test
+    public void switchingToEverySampleModeFlushesPendingValue() {
+        touch(MotionEvent.ACTION_DOWN, 200);
+        touch(MotionEvent.ACTION_MOVE, 150);
+        mBar.setListenerDispatchMode(VerticalSeekBar.DISPATCH_EVERY_SAMPLE);
+        assertEquals(1, mProgressCalls.size());
+        assertEquals(progressAt(150), mProgressCalls.get(0), DELTA);
+    }
+
+    @Test
+    public void coalescedModeFoldsThumbMoves() {
+        mBar.setThumbValues(new float[] {20, 80});
+        touch(MotionEvent.ACTION_DOWN, BOTTOM - 0.8f * (BOTTOM - TOP));
+        touch(MotionEvent.ACTION_MOVE, 150);
+        touch(MotionEvent.ACTION_MOVE, 100);
+        assertEquals(0, mThumbCalls.size());
+
+        runFrame();
+        assertEquals(1, mThumbCalls.size());
+        assertEquals(progressAt(100), mThumbCalls.get(0), DELTA);
+    }
+
+    @Test
+    public void detachedSeekBarDeliversImmediately() {
+        final VerticalSeekBar bar = new VerticalSeekBar(RuntimeEnvironment.application);
+        bar.setElementsSize(THUMB_SIZE, 4, 8);
+        bar.layout(0, 0, WIDTH, HEIGHT);
+        final List<Float> calls = new ArrayList<Float>();
+        bar.setOnProgressChangeListener(new VerticalSeekBar.OnProgressChangeListener() {
+            @Override
+            public void onProgressChanged(VerticalSeekBar seekBar, float progress, boolean fromUser) {
+                calls.add(progress);
+            }
+        });
+        bar.onTouchEvent(MotionEvent.obtain(0, 0, MotionEvent.ACTION_DOWN, WIDTH / 2f, 200, 0));
+        bar.onTouchEvent(MotionEvent.obtain(0, 0, MotionEvent.ACTION_MOVE, WIDTH / 2f, 100, 0));
+        assertEquals(2, calls.size());
+        assertEquals(progressAt(100), calls.get(1), DELTA);
+    }
+}
@@ -0,0 +1,123 @@
+package com.alperez.widget;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+/**
+ * An animation rejected by the engine must not leave the seek bar in the animating state, so later animations
+ * and cancellations still work. Channels must keep their own animations while other slots are removed.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 21)
+public class ProgressAnimationTest {
+
+    @Test
+    public void rejectedAnimationLeavesSeekBarIdle() {
+        final VerticalSeekBar bar = new VerticalSeekBar(RuntimeEnvironment.application);
+        try {
+            bar.animateProgressTo(80, -1, null);
+            fail("Negative duration was accepted");
+        } catch (IllegalArgumentException expected) {
+        }
+        assertFalse(bar.isProgressAnimating());
+        assertEquals(50, bar.getProgress(), 0);
+
+        bar.animateProgressTo(80, 100, null);
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+        assertEquals(80, bar.getProgress(), 0);
+        assertFalse(bar.isProgressAnimating());
+    }
+
+    @Test
+    public void rejectedAnimationLeavesBankChannelIdle() {
+        final VerticalSeekBarBank bank = new VerticalSeekBarBank(RuntimeEnvironment.application);
+        try {
+            bank.animateProgressTo(1, 80, -1, null);
+            fail("Negative duration was accepted");
+        } catch (IllegalArgumentException expected) {
+        }
+        assertFalse(bank.isProgressAnimating(1));
+        try {
+            bank.animateProgressTo(100, 80, 100, null);
+            fail("Channel out of range was accepted");
+        } catch (IndexOutOfBoundsException expected) {
+        }
+        assertEquals(50, bank.getProgress(1), 0);
+
+        bank.animateProgressTo(1, 80, 100, null);
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+        assertEquals(80, bank.getProgress(1), 0);
+        assertFalse(bank.isProgressAnimating(1));
+    }
+
+    private static final class RecordingTarget extends ProgressAnimationEngine.Target {
+        final float[] progress;
+        final int[] endedCount;
+
+        RecordingTarget(int channels) {
+            progress = new float[channels];
+            endedCount = new int[channels];
+            Arrays.fill(progress, Float.NaN);
+        }
+
+        @Override
+        void onAnimatedProgress(int channel, float value) {
+            progress[channel] = value;
+        }
+
+        @Override
+        void onProgressAnimationEnded(int channel) {
+            endedCount[channel] ++;
+        }
+    }
+
+    @Test
+    public void channelsKeepTheirAnimationsWhenSlotsAreRemoved() {
+        final int channels = 100;
+        final ProgressAnimationEngine engine = ProgressAnimationEngine.getInstance();
+        final RecordingTarget target = new RecordingTarget(channels);
+        final RecordingTarget other = new RecordingTarget(1);
+        ShadowLooper.pauseMainLooper();
+        try {
+            engine.start(other, 0, 0, 1, 100, null);
+            for (int i = 0; i < channels; i++) {
+                engine.start(target, i, 0, i, 100, null);
+            }
+            // Removing from the head and the middle moves the last slots into their places
+            for (int i = 0; i < channels; i += 3) {
+                engine.cancel(target, i);
+            }
+            engine.cancel(other, 0);
+            // Retargeting a moved animation must update it instead of adding a second one
+            engine.start(target, channels - 2, 0, 1000, 100, null);
+            engine.cancel(target, channels - 3);
+        } finally {
+            ShadowLooper.unPauseMainLooper();
+        }
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+
+        assertEquals(1, other.endedCount[0]);
+        for (int i = 0; i < channels; i++) {
+            assertEquals("Channel "+i, 1, target.endedCount[i]);
+            if (i % 3 == 0 || i == channels - 3) {
+                assertEquals("Channel "+i, Float.NaN, target.progress[i], 0);
+            } else {
+                assertEquals("Channel "+i, (i == channels - 2) ? 1000 : i, target.progress[i], 0);
+            }
+        }
+
+        // Nothing is left to cancel
+        engine.cancelAll(target);
+        assertEquals(1, target.endedCount[channels - 2]);
+    }
+}
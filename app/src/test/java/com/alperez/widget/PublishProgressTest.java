@@ -0,0 +1,62 @@
+package com.alperez.widget;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Values published from a background thread must reach a detached View, and later values must not be
+ * blocked by a hand-over which never ran.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 21)
+public class PublishProgressTest {
+
+    private static void publishFromBackground(final VerticalSeekBar bar, final float progress) throws InterruptedException {
+        final Thread producer = new Thread() {
+            @Override
+            public void run() {
+                bar.publishProgress(progress);
+            }
+        };
+        producer.start();
+        producer.join();
+        ShadowLooper.idleMainLooper();
+    }
+
+    private static void publishFromBackground(final VerticalSeekBarBank bank, final int channel, final float progress) throws InterruptedException {
+        final Thread producer = new Thread() {
+            @Override
+            public void run() {
+                bank.publishProgress(channel, progress);
+            }
+        };
+        producer.start();
+        producer.join();
+        ShadowLooper.idleMainLooper();
+    }
+
+    @Test
+    public void detachedSeekBarAppliesEveryPublishedValue() throws InterruptedException {
+        final VerticalSeekBar bar = new VerticalSeekBar(RuntimeEnvironment.application);
+        publishFromBackground(bar, 30);
+        assertEquals(30, bar.getProgress(), 0);
+        publishFromBackground(bar, 70);
+        assertEquals(70, bar.getProgress(), 0);
+    }
+
+    @Test
+    public void detachedBankAppliesEveryPublishedValue() throws InterruptedException {
+        final VerticalSeekBarBank bank = new VerticalSeekBarBank(RuntimeEnvironment.application);
+        publishFromBackground(bank, 0, 30);
+        assertEquals(30, bank.getProgress(0), 0);
+        publishFromBackground(bank, 1, 70);
+        assertEquals(70, bank.getProgress(1), 0);
+        assertEquals(30, bank.getProgress(0), 0);
+    }
+}
@@ -0,0 +1,142 @@
+package com.alperez.widget;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.PorterDuff;
+import android.graphics.Rect;
+import android.graphics.RectF;
+
+/**
+ * Canvas which renders nothing. It counts draw operations and remembers where the last line and the last bitmap
+ * were drawn, and the size of that bitmap. Nothing is allocated, so it does not disturb allocation measurements.
+ */
+class RecordingCanvas extends Canvas {
+    int drawOps;
+    int bitmapOps;
+    float lastLineStartY = Float.NaN;
+    float lastBitmapCenterY = Float.NaN;
+    int lastBitmapWidth;
+
+    void reset() {
+        drawOps = 0;
+        bitmapOps = 0;
+        lastLineStartY = Float.NaN;
+        lastBitmapCenterY = Float.NaN;
+        lastBitmapWidth = 0;
+    }
+
+    private void onBitmap(Bitmap bitmap, float top) {
+        drawOps ++;
+        bitmapOps ++;
+        lastBitmapCenterY = top + (float) bitmap.getHeight() / 2f;
+        lastBitmapWidth = bitmap.getWidth();
+    }
+
+    @Override
+    public void drawBitmap(Bitmap bitmap, float left, float top, Paint paint) {
+        onBitmap(bitmap, top);
+    }
+
+    @Override
+    public void drawBitmap(Bitmap bitmap, Rect src, Rect dst, Paint paint) {
+        onBitmap(bitmap, dst.top);
+    }
+
+    @Override
+    public void drawBitmap(Bitmap bitmap, Rect src, RectF dst, Paint paint) {
+        onBitmap(bitmap, dst.top);
+    }
+
+    @Override
+    public void drawLine(float startX, float startY, float stopX, float stopY, Paint paint) {
+        drawOps ++;
+        lastLineStartY = startY;
+    }
+
+    @Override
+    public void drawLines(float[] pts, int offset, int count, Paint paint) {
+        drawOps ++;
+    }
+
+    @Override
+    public void drawLines(float[] pts, Paint paint) {
+        drawOps ++;
+    }
+
+    @Override
+    public void drawPoints(float[] pts, int offset, int count, Paint paint) {
+        drawOps ++;
+    }
+
+    @Override
+    public void drawPoints(float[] pts, Paint paint) {
+        drawOps ++;
+    }
+
+    @Override
+    public void drawCircle(float cx, float cy, float radius, Paint paint) {
+        drawOps ++;
+    }
+
+    @Override
+    public void drawRect(float left, float top, float right, float bottom, Paint paint) {
+        drawOps ++;
+    }
+
+    @Override
+    public void drawRect(Rect r, Paint paint) {
+        drawOps ++;
+    }
+
+    @Override
+    public void drawRect(RectF rect, Paint paint) {
+        drawOps ++;
+    }
+
+    @Override
+    public void drawPath(Path path, Paint paint) {
+        drawOps ++;
+    }
+
+    @Override
+    public void drawColor(int color) {
+        drawOps ++;
+    }
+
+    @Override
+    public void drawColor(int color, PorterDuff.Mode mode) {
+        drawOps ++;
+    }
+
+    //----  State operations are not counted  ----
+
+    @Override
+    public int save() {
+        return 1;
+    }
+
+    @Override
+    public int save(int saveFlags) {
+        return 1;
+    }
+
+    @Override
+    public void restore() {
+    }
+
+    @Override
+    public boolean clipRect(Rect rect) {
+        return true;
+    }
+
+    @Override
+    public boolean clipRect(float left, float top, float right, float bottom) {
+        return true;
+    }
+
+    @Override
+    public void translate(float dx, float dy) {
+    }
+}
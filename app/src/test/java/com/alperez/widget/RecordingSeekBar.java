@@ -0,0 +1,61 @@
+package com.alperez.widget;
+
+import android.content.Context;
+
+/**
+ * Counts layout requests, layout passes and invalidations of the seek bar. The union of invalidated rectangles
+ * is kept in plain fields, so recording allocates nothing.
+ */
+class RecordingSeekBar extends VerticalSeekBar {
+    // Fields are not initialized explicitly - the super constructor may already call the overridden methods
+    int requestLayoutCount;
+    int layoutCount;
+    int invalidationCount;
+    long invalidatedArea;
+    int dirtyLeft;
+    int dirtyTop;
+    int dirtyRight;
+    int dirtyBottom;
+
+    RecordingSeekBar(Context context) {
+        super(context);
+    }
+
+    void resetCounters() {
+        requestLayoutCount = 0;
+        layoutCount = 0;
+        invalidationCount = 0;
+        invalidatedArea = 0;
+        dirtyLeft = dirtyTop = dirtyRight = dirtyBottom = 0;
+    }
+
+    @Override
+    public void requestLayout() {
+        requestLayoutCount ++;
+        super.requestLayout();
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+        layoutCount ++;
+        super.onLayout(changed, left, top, right, bottom);
+    }
+
+    @Override
+    void onInvalidated(int left, int top, int right, int bottom) {
+        super.onInvalidated(left, top, right, bottom);
+        if (invalidationCount == 0) {
+            dirtyLeft = left;
+            dirtyTop = top;
+            dirtyRight = right;
+            dirtyBottom = bottom;
+        } else {
+            dirtyLeft = Math.min(dirtyLeft, left);
+            dirtyTop = Math.min(dirtyTop, top);
+            dirtyRight = Math.max(dirtyRight, right);
+            dirtyBottom = Math.max(dirtyBottom, bottom);
+        }
+        invalidationCount ++;
+        invalidatedArea += (long) (right - left) * (bottom - top);
+    }
+}
@@ -0,0 +1,170 @@
+package com.alperez.widget;
+
+import org.robolectric.internal.bytecode.ClassHandler;
+import org.robolectric.internal.bytecode.RobolectricInternals;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.util.IdentityHashMap;
+
+/**
+ * Measures bytes allocated by Robolectric when framework methods run on the measuring thread. These bytes
+ * do not exist on a device. Robolectric boxes arguments and return values of every shadowed call and packs
+ * them into an array, so e.g. Paint.setColor() or MotionEvent.getY() allocate 40-60 bytes each.
+ *
+ * The meter wraps the class handler of the sandbox. Everything allocated from the dispatch of a framework call
+ * up to its return is attributed to Robolectric. Objects created with "new" by the seek bar are allocated
+ * before the framework code runs, so they are still attributed to the seek bar. Framework code which calls back
+ * into overridden methods of the seek bar is not used on the measured paths.
+ *
+ * Nothing is allocated per call once every called method has been seen. Only the installing thread is metered.
+ */
+final class ShadowCostMeter implements ClassHandler {
+    private static final com.sun.management.ThreadMXBean THREADS = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final ClassHandler mDelegate;
+    private final Thread mThread;
+    private final long mThreadId;
+    // Wrappers are cached per plan, so dispatching a known method allocates nothing
+    private final IdentityHashMap<Plan, MeteredPlan> mPlans = new IdentityHashMap<Plan, MeteredPlan>();
+    // Framework calls nest, only the outermost one is metered
+    private int mDepth;
+    private long mStartBytes;
+    private long mBytes;
+
+    private ShadowCostMeter(ClassHandler delegate) {
+        mDelegate = delegate;
+        mThread = Thread.currentThread();
+        mThreadId = mThread.getId();
+    }
+
+    /**
+     * Installs a meter for the current thread. It stays installed for the rest of the test, the sandbox
+     * sets up a new class handler for every test.
+     */
+    static ShadowCostMeter install() {
+        final Field field = handlerField();
+        try {
+            final ClassHandler current = (ClassHandler) field.get(null);
+            if (current instanceof ShadowCostMeter) {
+                final ShadowCostMeter meter = (ShadowCostMeter) current;
+                if (meter.mThread == Thread.currentThread()) return meter;
+            }
+            final ShadowCostMeter meter = new ShadowCostMeter(current);
+            field.set(null, meter);
+            return meter;
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Unable to install the shadow cost meter", e);
+        }
+    }
+
+    private static Field handlerField() {
+        try {
+            final Field field = RobolectricInternals.class.getDeclaredField("classHandler");
+            field.setAccessible(true);
+            return field;
+        } catch (NoSuchFieldException e) {
+            throw new IllegalStateException("Unsupported Robolectric version", e);
+        }
+    }
+
+    /**
+     * @return bytes allocated by Robolectric on the installing thread since the meter was installed
+     */
+    long getBytes() {
+        return mBytes;
+    }
+
+    private long allocatedBytes() {
+        return THREADS.getThreadAllocatedBytes(mThreadId);
+    }
+
+    private boolean isMetered() {
+        return Thread.currentThread() == mThread;
+    }
+
+    private void enter() {
+        if (mDepth ++ == 0) {
+            mStartBytes = allocatedBytes();
+        }
+    }
+
+    private void exit() {
+        if (-- mDepth == 0) {
+            mBytes += allocatedBytes() - mStartBytes;
+        }
+    }
+
+    @Override
+    public void classInitializing(Class clazz) {
+        mDelegate.classInitializing(clazz);
+    }
+
+    @Override
+    public Object initializing(Object instance) {
+        if (!isMetered()) return mDelegate.initializing(instance);
+        enter();
+        try {
+            return mDelegate.initializing(instance);
+        } finally {
+            exit();
+        }
+    }
+
+    /**
+     * The returned plan is run right after this call, with arguments packed in between. The metered interval
+     * therefore starts here and ends when the plan returns.
+     */
+    @Override
+    public Plan methodInvoked(String signature, boolean isStatic, Class<?> theClass) {
+        if (!isMetered()) return mDelegate.methodInvoked(signature, isStatic, theClass);
+        enter();
+        boolean running = false;
+        try {
+            final Plan plan = mDelegate.methodInvoked(signature, isStatic, theClass);
+            if (plan == null) return null;
+            MeteredPlan metered = mPlans.get(plan);
+            if (metered == null) {
+                metered = new MeteredPlan(plan);
+                mPlans.put(plan, metered);
+            }
+            running = true;
+            return metered;
+        } finally {
+            if (!running) exit();
+        }
+    }
+
+    @Override
+    public Object intercept(String signature, Object instance, Object[] params, Class theClass) throws Throwable {
+        if (!isMetered()) return mDelegate.intercept(signature, instance, params, theClass);
+        enter();
+        try {
+            return mDelegate.intercept(signature, instance, params, theClass);
+        } finally {
+            exit();
+        }
+    }
+
+    @Override
+    public <T extends Throwable> T stripStackTrace(T throwable) {
+        return mDelegate.stripStackTrace(throwable);
+    }
+
+    private final class MeteredPlan implements Plan {
+        private final Plan mPlan;
+
+        MeteredPlan(Plan plan) {
+            mPlan = plan;
+        }
+
+        @Override
+        public Object run(Object instance, Object roboData, Object[] params) throws Throwable {
+            try {
+                return mPlan.run(instance, roboData, params);
+            } finally {
+                exit();
+            }
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.alperez.widget;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The thread must run only while it has targets, sleep between requests and survive interrupts.
+ */
+public class SharedRenderThreadTest {
+    private static final long TIMEOUT_MS = 5000;
+
+    private static final class CountingTarget extends SharedRenderThread.Target {
+        int renders;
+        boolean released;
+        Thread renderThread;
+
+        @Override
+        synchronized void onRender() {
+            renders ++;
+            renderThread = Thread.currentThread();
+            notifyAll();
+        }
+
+        @Override
+        synchronized void onReleased() {
+            released = true;
+            notifyAll();
+        }
+
+        synchronized void awaitRenders(int count) throws InterruptedException {
+            final long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+            while (renders < count) {
+                final long left = deadline - System.currentTimeMillis();
+                assertTrue("Render "+count+" did not happen", left > 0);
+                wait(left);
+            }
+        }
+
+        synchronized void awaitReleased() throws InterruptedException {
+            final long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+            while (!released) {
+                final long left = deadline - System.currentTimeMillis();
+                assertTrue("Target was not released", left > 0);
+                wait(left);
+            }
+        }
+
+        synchronized int getRenders() {
+            return renders;
+        }
+    }
+
+    private static void awaitParked(Thread thread) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (thread.getState() != Thread.State.WAITING) {
+            assertTrue("Thread does not sleep: "+thread.getState(), System.currentTimeMillis() < deadline);
+            Thread.sleep(1);
+        }
+    }
+
+    @Test
+    public void threadRunsOnlyWhileTargetsAreAdded() throws InterruptedException {
+        final SharedRenderThread renderThread = new SharedRenderThread();
+        final CountingTarget target = new CountingTarget();
+        assertNull(renderThread.getThread());
+
+        renderThread.add(target);
+        target.awaitRenders(1);
+        final Thread thread = renderThread.getThread();
+        assertNotNull(thread);
+
+        renderThread.release(target);
+        target.awaitReleased();
+        thread.join(TIMEOUT_MS);
+        assertFalse(thread.isAlive());
+        assertNull(renderThread.getThread());
+
+        // A released target is not drawn any more, a new one starts a new thread
+        renderThread.requestRender(target);
+        final CountingTarget next = new CountingTarget();
+        renderThread.add(next);
+        next.awaitRenders(1);
+        assertEquals(1, target.getRenders());
+        renderThread.release(next);
+        next.awaitReleased();
+    }
+
+    @Test
+    public void requestsMadeBetweenFramesAreCoalesced() throws InterruptedException {
+        final SharedRenderThread renderThread = new SharedRenderThread();
+        final CountingTarget target = new CountingTarget();
+        renderThread.add(target);
+        target.awaitRenders(1);
+        final Thread thread = renderThread.getThread();
+        awaitParked(thread);
+
+        synchronized (target) {
+            // The render thread takes the request and blocks in the second frame until the lock is released
+            renderThread.requestRender(target);
+            final long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+            while (thread.getState() != Thread.State.BLOCKED) {
+                assertTrue("Second frame was not started", System.currentTimeMillis() < deadline);
+                Thread.sleep(1);
+            }
+            renderThread.requestRender(target);
+            renderThread.requestRender(target);
+        }
+        target.awaitRenders(3);
+        awaitParked(thread);
+        assertEquals(3, target.getRenders());
+
+        renderThread.release(target);
+        target.awaitReleased();
+    }
+
+    @Test
+    public void interruptDoesNotStopTheThread() throws InterruptedException {
+        final SharedRenderThread renderThread = new SharedRenderThread();
+        final CountingTarget target = new CountingTarget();
+        renderThread.add(target);
+        target.awaitRenders(1);
+        final Thread thread = renderThread.getThread();
+        awaitParked(thread);
+
+        thread.interrupt();
+        // Interrupt status is cleared before sleeping again, so the thread does not spin
+        awaitParked(thread);
+        assertEquals(1, target.getRenders());
+        assertSame(thread, renderThread.getThread());
+
+        renderThread.requestRender(target);
+        target.awaitRenders(2);
+        synchronized (target) {
+            assertSame(thread, target.renderThread);
+        }
+
+        renderThread.release(target);
+        target.awaitReleased();
+        thread.join(TIMEOUT_MS);
+        assertFalse(thread.isAlive());
+    }
+}
@@ -0,0 +1,79 @@
+package com.alperez.widget;
+
+import android.graphics.Color;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * With the static track cached, a frame is one blit of the cache plus the selected bar and the thumb,
+ * whatever the static layer consists of.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 21)
+public class TrackCacheDrawOpsTest {
+    private static final int WIDTH = 60;
+    private static final int HEIGHT = 400;
+
+    // The selected bar and the thumb sprite
+    private static final int DYNAMIC_OPS = 2;
+
+    private RecordingSeekBar mBar;
+    private FrameRunner mRunner;
+
+    @Before
+    public void setUp() {
+        mBar = new RecordingSeekBar(RuntimeEnvironment.application);
+        mBar.setElementsSize(30, 4, 8);
+        mRunner = new FrameRunner(mBar, WIDTH, HEIGHT);
+    }
+
+    private int drawOpsPerFrame() {
+        final FrameRunner.Frame[] frames = mRunner.run(new FrameRunner.Script() {
+            @Override
+            public void onFrame(RecordingSeekBar bar, int frame) {
+                bar.setProgress(frame);
+            }
+        }, 10);
+        final int ops = frames[0].drawOps;
+        for (FrameRunner.Frame f : frames) {
+            assertEquals("Draw operations must not depend on progress", ops, f.drawOps);
+        }
+        return ops;
+    }
+
+    private void enableTicks() {
+        mBar.setStepSize(5);
+        mBar.setTicks(4, 6, 12, Color.GRAY);
+    }
+
+    @Test
+    public void cachedTrackIsOneBlit() {
+        assertEquals(1 + DYNAMIC_OPS, drawOpsPerFrame());
+        enableTicks();
+        assertEquals(1 + DYNAMIC_OPS, drawOpsPerFrame());
+    }
+
+    @Test
+    public void uncachedTrackIsRedrawnEveryFrame() {
+        mBar.setTrackCacheEnabled(false);
+        // The non-selected bar
+        assertEquals(1 + DYNAMIC_OPS, drawOpsPerFrame());
+        enableTicks();
+        // Plus all ticks in one call
+        assertEquals(2 + DYNAMIC_OPS, drawOpsPerFrame());
+    }
+
+    @Test
+    public void colorChangeKeepsTrackCached() {
+        enableTicks();
+        mBar.setBarColors(Color.RED, Color.GREEN, Color.BLUE);
+        assertEquals(1 + DYNAMIC_OPS, drawOpsPerFrame());
+    }
+}
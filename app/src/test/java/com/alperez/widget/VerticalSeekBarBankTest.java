@@ -0,0 +1,237 @@
+package com.alperez.widget;
+
+import android.content.Context;
+import android.view.MotionEvent;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.Shadows;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Touches must be routed to the column under the pointer and stay with their channels, and dirty bounds must
+ * cover the moved thumb within its column only.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 21)
+public class VerticalSeekBarBankTest {
+    private static final int CHANNELS = 4;
+    private static final int PADDING = 10;
+    private static final int COLUMN_WIDTH = 50;
+    private static final int WIDTH = 2 * PADDING + CHANNELS * COLUMN_WIDTH;
+    private static final int HEIGHT = 400;
+    private static final int THUMB_SIZE = 30;
+    private static final float TOP = THUMB_SIZE / 2f;
+    private static final float BOTTOM = HEIGHT - THUMB_SIZE / 2f;
+    // The touched wrapper spans the column width
+    private static final float DIRTY_RADIUS = COLUMN_WIDTH / 2f;
+    // Same as VerticalSeekBarBank.MAX_POINTER_ID
+    private static final int MAX_POINTER_ID = 32;
+
+    private static final class RecordingBank extends VerticalSeekBarBank {
+        // Fields are not initialized explicitly - the super constructor may already call the overridden methods
+        int invalidationCount;
+        int dirtyLeft;
+        int dirtyTop;
+        int dirtyRight;
+        int dirtyBottom;
+
+        RecordingBank(Context context) {
+            super(context);
+        }
+
+        void resetCounters() {
+            invalidationCount = 0;
+            dirtyLeft = dirtyTop = dirtyRight = dirtyBottom = 0;
+        }
+
+        @Override
+        void onInvalidated(int left, int top, int right, int bottom) {
+            if (invalidationCount == 0) {
+                dirtyLeft = left;
+                dirtyTop = top;
+                dirtyRight = right;
+                dirtyBottom = bottom;
+            } else {
+                dirtyLeft = Math.min(dirtyLeft, left);
+                dirtyTop = Math.min(dirtyTop, top);
+                dirtyRight = Math.max(dirtyRight, right);
+                dirtyBottom = Math.max(dirtyBottom, bottom);
+            }
+            invalidationCount ++;
+        }
+    }
+
+    private RecordingBank mBank;
+
+    @Before
+    public void setUp() {
+        mBank = new RecordingBank(RuntimeEnvironment.application);
+        mBank.setElementsSize(THUMB_SIZE, 4, 8);
+        mBank.setChannelCount(CHANNELS);
+        mBank.setPadding(PADDING, 0, PADDING, 0);
+        mBank.layout(0, 0, WIDTH, HEIGHT);
+        mBank.resetCounters();
+    }
+
+    private static float columnCenter(int channel) {
+        return PADDING + channel * COLUMN_WIDTH + COLUMN_WIDTH / 2f;
+    }
+
+    private static float progressForPixel(float pixelY) {
+        return (BOTTOM - pixelY) / (BOTTOM - TOP) * 100f;
+    }
+
+    private static float pixelForProgress(float progress) {
+        return BOTTOM - progress / 100f * (BOTTOM - TOP);
+    }
+
+    private static MotionEvent event(int action, float x, float y, int pointerId) {
+        final MotionEvent event = MotionEvent.obtain(0, 0, action, x, y, 0);
+        Shadows.shadowOf(event).setPointerIds(pointerId, -1);
+        return event;
+    }
+
+    /**
+     * Event with two pointers, the action applies to the pointer with the given index
+     */
+    private static MotionEvent event(int action, int actionIndex, float x0, float y0, int id0, float x1, float y1, int id1) {
+        final MotionEvent event = MotionEvent.obtain(0, 0, action | (actionIndex << MotionEvent.ACTION_POINTER_INDEX_SHIFT), x0, y0, 0);
+        Shadows.shadowOf(event).setPointer2(x1, y1);
+        Shadows.shadowOf(event).setPointerIds(id0, id1);
+        Shadows.shadowOf(event).setPointerIndex(actionIndex);
+        return event;
+    }
+
+    private void assertDirtyBand(int channel, float fromY, float toY) {
+        assertTrue("Nothing was invalidated", mBank.invalidationCount > 0);
+        assertEquals(PADDING + channel * COLUMN_WIDTH, mBank.dirtyLeft);
+        assertEquals(PADDING + (channel + 1) * COLUMN_WIDTH, mBank.dirtyRight);
+        assertTrue("Top "+mBank.dirtyTop+" does not cover the thumb", mBank.dirtyTop <= Math.max(0, Math.min(fromY, toY) - DIRTY_RADIUS));
+        assertTrue("Bottom "+mBank.dirtyBottom+" does not cover the thumb", mBank.dirtyBottom >= Math.min(HEIGHT, Math.max(fromY, toY) + DIRTY_RADIUS));
+        assertTrue("The whole column was invalidated", mBank.dirtyBottom - mBank.dirtyTop < HEIGHT);
+    }
+
+    @Test
+    public void channelIsFoundAtColumnEdges() {
+        assertEquals(-1, mBank.getChannelAt(PADDING - 0.1f));
+        assertEquals(0, mBank.getChannelAt(PADDING));
+        assertEquals(0, mBank.getChannelAt(PADDING + COLUMN_WIDTH - 0.1f));
+        assertEquals(1, mBank.getChannelAt(PADDING + COLUMN_WIDTH));
+        assertEquals(CHANNELS - 1, mBank.getChannelAt(WIDTH - PADDING - 0.1f));
+        assertEquals(-1, mBank.getChannelAt(WIDTH - PADDING));
+        assertEquals(-1, mBank.getChannelAt(WIDTH));
+    }
+
+    @Test
+    public void touchBetweenTouchableStripsIsIgnored() {
+        // The strip is as wide as the thumb around the column center. Far from the thumb only the strip is touchable.
+        final float gapX = PADDING + COLUMN_WIDTH + 2;
+        assertFalse(mBank.onTouchEvent(event(MotionEvent.ACTION_DOWN, gapX, 50, 0)));
+        assertEquals(50, mBank.getProgress(1), 0);
+
+        assertTrue(mBank.onTouchEvent(event(MotionEvent.ACTION_DOWN, columnCenter(1), 50, 0)));
+        assertEquals(progressForPixel(50), mBank.getProgress(1), 1e-4f);
+    }
+
+    @Test
+    public void pointersMoveOnlyTheirChannels() {
+        mBank.onTouchEvent(event(MotionEvent.ACTION_DOWN, columnCenter(0), 100, 0));
+        mBank.onTouchEvent(event(MotionEvent.ACTION_POINTER_DOWN, 1, columnCenter(0), 100, 0, columnCenter(2), 300, 1));
+        assertEquals(progressForPixel(100), mBank.getProgress(0), 1e-4f);
+        assertEquals(progressForPixel(300), mBank.getProgress(2), 1e-4f);
+
+        // Pointers keep their channels even if they leave the columns
+        mBank.onTouchEvent(event(MotionEvent.ACTION_MOVE, 0, columnCenter(3), 150, 0, columnCenter(1), 250, 1));
+        assertEquals(progressForPixel(150), mBank.getProgress(0), 1e-4f);
+        assertEquals(progressForPixel(250), mBank.getProgress(2), 1e-4f);
+        assertEquals(50, mBank.getProgress(1), 0);
+        assertEquals(50, mBank.getProgress(3), 0);
+
+        // After the first pointer is up only the second one moves its channel
+        mBank.onTouchEvent(event(MotionEvent.ACTION_POINTER_UP, 0, columnCenter(0), 150, 0, columnCenter(2), 250, 1));
+        mBank.onTouchEvent(event(MotionEvent.ACTION_MOVE, 0, columnCenter(0), 80, 0, columnCenter(2), 200, 1));
+        assertEquals(progressForPixel(150), mBank.getProgress(0), 1e-4f);
+        assertEquals(progressForPixel(200), mBank.getProgress(2), 1e-4f);
+    }
+
+    @Test
+    public void secondPointerDoesNotTakeOverTouchedChannel() {
+        mBank.onTouchEvent(event(MotionEvent.ACTION_DOWN, columnCenter(1), 100, 0));
+        mBank.onTouchEvent(event(MotionEvent.ACTION_POINTER_DOWN, 1, columnCenter(1), 100, 0, columnCenter(1), 300, 1));
+        assertEquals(progressForPixel(100), mBank.getProgress(1), 1e-4f);
+    }
+
+    @Test
+    public void pointerIdsAboveLimitAreIgnored() {
+        assertFalse(mBank.onTouchEvent(event(MotionEvent.ACTION_DOWN, columnCenter(0), 100, MAX_POINTER_ID)));
+        assertEquals(50, mBank.getProgress(0), 0);
+
+        // The pointer within the limit still works, events of the other one are skipped
+        assertTrue(mBank.onTouchEvent(event(MotionEvent.ACTION_DOWN, columnCenter(1), 100, 0)));
+        mBank.onTouchEvent(event(MotionEvent.ACTION_POINTER_DOWN, 1, columnCenter(1), 100, 0, columnCenter(2), 300, MAX_POINTER_ID + 5));
+        mBank.onTouchEvent(event(MotionEvent.ACTION_MOVE, 0, columnCenter(1), 120, 0, columnCenter(2), 320, MAX_POINTER_ID + 5));
+        mBank.onTouchEvent(event(MotionEvent.ACTION_POINTER_UP, 1, columnCenter(1), 120, 0, columnCenter(2), 320, MAX_POINTER_ID + 5));
+        assertEquals(progressForPixel(120), mBank.getProgress(1), 1e-4f);
+        assertEquals(50, mBank.getProgress(2), 0);
+    }
+
+    @Test
+    public void cancelReleasesAllChannels() {
+        mBank.onTouchEvent(event(MotionEvent.ACTION_DOWN, columnCenter(0), 100, 0));
+        mBank.onTouchEvent(event(MotionEvent.ACTION_POINTER_DOWN, 1, columnCenter(0), 100, 0, columnCenter(3), 300, 1));
+        mBank.resetCounters();
+
+        assertTrue(mBank.onTouchEvent(event(MotionEvent.ACTION_CANCEL, 0, columnCenter(0), 100, 0, columnCenter(3), 300, 1)));
+        // Selected bars of both channels change their color down to the bottom
+        assertEquals(PADDING, mBank.dirtyLeft);
+        assertEquals(WIDTH - PADDING, mBank.dirtyRight);
+        assertEquals(HEIGHT, mBank.dirtyBottom);
+
+        // Further moves belong to no channel
+        assertFalse(mBank.onTouchEvent(event(MotionEvent.ACTION_MOVE, 0, columnCenter(0), 200, 0, columnCenter(3), 200, 1)));
+        assertEquals(progressForPixel(100), mBank.getProgress(0), 1e-4f);
+        assertEquals(progressForPixel(300), mBank.getProgress(3), 1e-4f);
+    }
+
+    @Test
+    public void setProgressInvalidatesBandOfOneColumn() {
+        mBank.setProgress(2, 60);
+        assertDirtyBand(2, pixelForProgress(50), pixelForProgress(60));
+    }
+
+    @Test
+    public void dragInvalidatesBandOfOneColumn() {
+        mBank.onTouchEvent(event(MotionEvent.ACTION_DOWN, columnCenter(1), 200, 0));
+        mBank.resetCounters();
+        mBank.onTouchEvent(event(MotionEvent.ACTION_MOVE, columnCenter(1), 180, 0));
+        assertDirtyBand(1, 200, 180);
+    }
+
+    @Test
+    public void moveToSamePositionInvalidatesNothing() {
+        mBank.onTouchEvent(event(MotionEvent.ACTION_DOWN, columnCenter(1), 200, 0));
+        mBank.resetCounters();
+        mBank.onTouchEvent(event(MotionEvent.ACTION_MOVE, columnCenter(1), 200, 0));
+        assertEquals(0, mBank.invalidationCount);
+
+        // Clamped to the top of the track twice
+        mBank.onTouchEvent(event(MotionEvent.ACTION_MOVE, columnCenter(1), 0, 0));
+        mBank.resetCounters();
+        mBank.onTouchEvent(event(MotionEvent.ACTION_MOVE, columnCenter(1), -10, 0));
+        assertEquals(0, mBank.invalidationCount);
+    }
+
+    @Test
+    public void paddingChangeInvalidates() {
+        mBank.setPadding(PADDING + 5, 0, PADDING + 5, 0);
+        assertTrue(mBank.invalidationCount > 0);
+    }
+}
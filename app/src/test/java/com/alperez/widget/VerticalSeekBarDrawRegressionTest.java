@@ -0,0 +1,145 @@
+package com.alperez.widget;
+
+import android.graphics.Color;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Replays scripted interactions frame by frame and checks the cost of every frame - draw operations, allocated bytes,
+ * invalidated area, layout requests and passes - against src/test/baselines/draw.properties. The drawn geometry
+ * of every frame is checked against the values expected for the script.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 21)
+public class VerticalSeekBarDrawRegressionTest {
+    private static final int WIDTH = 60;
+    private static final int HEIGHT = 400;
+    private static final int THUMB_SIZE = 30;
+    // Bounds of the thumb center for the size above without paddings
+    private static final float TOP = THUMB_SIZE / 2f;
+    private static final float BOTTOM = HEIGHT - THUMB_SIZE / 2f;
+
+    private static final float GEOMETRY_TOLERANCE = 0.01f;
+
+    private Baselines mBaselines;
+    private RecordingSeekBar mBar;
+    private FrameRunner mRunner;
+
+    @Before
+    public void setUp() {
+        mBaselines = Baselines.load("draw.properties");
+        mBar = new RecordingSeekBar(RuntimeEnvironment.application);
+        mBar.setElementsSize(THUMB_SIZE, 4, 8);
+        mRunner = new FrameRunner(mBar, WIDTH, HEIGHT);
+    }
+
+    private static float pixelForProgress(float progress) {
+        return BOTTOM - progress / 100f * (BOTTOM - TOP);
+    }
+
+    private static float clampThumb(float y) {
+        return Math.max(TOP, Math.min(BOTTOM, y));
+    }
+
+    @Test
+    public void dragThumb() {
+        // From the initial progress of 50 up beyond the top, then down beyond the bottom
+        final float[] ys = new float[64];
+        for (int i = 0; i < 24; i++) {
+            ys[i] = pixelForProgress(50) - 10 * i;
+        }
+        for (int i = 24; i < ys.length; i++) {
+            ys[i] = ys[23] + 11.5f * (i - 23);
+        }
+        final FrameRunner.Frame[] frames = mRunner.run(FrameRunner.touches(FrameRunner.drag(WIDTH / 2f, ys, 16)), ys.length + 1);
+
+        for (int i = 0; i < ys.length; i++) {
+            final float expectedY = clampThumb(ys[i]);
+            assertEquals("Thumb of frame "+i, expectedY, frames[i].thumbCenterY, GEOMETRY_TOLERANCE);
+            assertEquals("Selected bar of frame "+i, expectedY, frames[i].selectedBarTopY, GEOMETRY_TOLERANCE);
+            assertEquals("Progress of frame "+i, 100f * (BOTTOM - expectedY) / (BOTTOM - TOP), frames[i].progress, 1e-3f);
+        }
+        assertWithinBaselines("drag", frames);
+    }
+
+    @Test
+    public void setProgressEveryFrame() {
+        final int frameCount = 50;
+        final FrameRunner.Frame[] frames = mRunner.run(new FrameRunner.Script() {
+            @Override
+            public void onFrame(RecordingSeekBar bar, int frame) {
+                bar.setProgress(2 * frame);
+            }
+        }, frameCount);
+
+        for (int i = 0; i < frameCount; i++) {
+            assertEquals("Thumb of frame "+i, pixelForProgress(2 * i), frames[i].thumbCenterY, GEOMETRY_TOLERANCE);
+        }
+        assertWithinBaselines("setProgress", frames);
+    }
+
+    @Test
+    public void changeColorsEveryFrame() {
+        final FrameRunner.Frame[] frames = mRunner.run(new FrameRunner.Script() {
+            @Override
+            public void onFrame(RecordingSeekBar bar, int frame) {
+                final int color = ((frame & 1) == 0) ? Color.RED : Color.GREEN;
+                bar.setBarColors(color, color, color);
+            }
+        }, 20);
+
+        for (int i = 0; i < frames.length; i++) {
+            assertEquals("Thumb of frame "+i, pixelForProgress(50), frames[i].thumbCenterY, GEOMETRY_TOLERANCE);
+        }
+        assertWithinBaselines("colors", frames);
+    }
+
+    @Test
+    public void dragMiddleThumb() {
+        mBar.setThumbValues(new float[] {20, 50, 80});
+        final float[] ys = new float[40];
+        for (int i = 0; i < 20; i++) {
+            ys[i] = pixelForProgress(50) - 8 * i;
+        }
+        for (int i = 20; i < ys.length; i++) {
+            ys[i] = ys[19] + 12 * (i - 19);
+        }
+        final FrameRunner.Frame[] frames = mRunner.run(FrameRunner.touches(FrameRunner.drag(WIDTH / 2f, ys, 16)), ys.length + 1);
+
+        // Neighbours limit the dragged thumb. The touched thumb is drawn last.
+        final float upperLimit = pixelForProgress(80);
+        final float lowerLimit = pixelForProgress(20);
+        for (int i = 0; i < ys.length; i++) {
+            final float expectedY = Math.max(upperLimit, Math.min(lowerLimit, ys[i]));
+            assertEquals("Thumb of frame "+i, expectedY, frames[i].thumbCenterY, GEOMETRY_TOLERANCE);
+        }
+        assertWithinBaselines("multiThumbDrag", frames);
+    }
+
+    private void assertWithinBaselines(String scenario, FrameRunner.Frame[] frames) {
+        int drawOps = 0;
+        long allocatedBytes = 0;
+        long invalidatedArea = 0;
+        int requestLayoutCount = 0;
+        int layoutCount = 0;
+        for (FrameRunner.Frame f : frames) {
+            drawOps = Math.max(drawOps, f.drawOps);
+            allocatedBytes = Math.max(allocatedBytes, f.allocatedBytes);
+            invalidatedArea = Math.max(invalidatedArea, f.invalidatedArea);
+            requestLayoutCount += f.requestLayoutCount;
+            layoutCount += f.layoutCount;
+        }
+        mBaselines.assertWithin(scenario+".maxDrawOps", drawOps);
+        mBaselines.assertWithin(scenario+".maxAllocatedBytes", allocatedBytes);
+        mBaselines.assertWithin(scenario+".maxInvalidatedArea", invalidatedArea);
+        mBaselines.assertWithin(scenario+".requestLayoutCount", requestLayoutCount);
+        mBaselines.assertWithin(scenario+".layoutCount", layoutCount);
+    }
+}
@@ -0,0 +1,108 @@
+package com.alperez.widget;
+
+import android.view.MotionEvent;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Dirty bounds must cover everything which changed - the thumb at the old and the new positions with the touched
+ * wrapper around it, and the selected bar between them - but not the whole View.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 21)
+public class VerticalSeekBarInvalidationTest {
+    private static final int WIDTH = 60;
+    private static final int HEIGHT = 400;
+    private static final int THUMB_SIZE = 30;
+    private static final float TOP = THUMB_SIZE / 2f;
+    private static final float BOTTOM = HEIGHT - THUMB_SIZE / 2f;
+    // The touched wrapper spans the content width
+    private static final float DIRTY_RADIUS = WIDTH / 2f;
+
+    private RecordingSeekBar mBar;
+
+    @Before
+    public void setUp() {
+        mBar = new RecordingSeekBar(RuntimeEnvironment.application);
+        mBar.setElementsSize(THUMB_SIZE, 4, 8);
+        new FrameRunner(mBar, WIDTH, HEIGHT);
+        mBar.resetCounters();
+    }
+
+    private static float pixelForProgress(float progress, float min, float max) {
+        return BOTTOM - (progress - min) / (max - min) * (BOTTOM - TOP);
+    }
+
+    private void assertDirtyBand(float fromY, float toY) {
+        assertTrue("Nothing was invalidated", mBar.invalidationCount > 0);
+        assertEquals(0, mBar.dirtyLeft);
+        assertEquals(WIDTH, mBar.dirtyRight);
+        assertTrue("Top "+mBar.dirtyTop+" does not cover the thumb", mBar.dirtyTop <= Math.max(0, Math.min(fromY, toY) - DIRTY_RADIUS));
+        assertTrue("Bottom "+mBar.dirtyBottom+" does not cover the thumb", mBar.dirtyBottom >= Math.min(HEIGHT, Math.max(fromY, toY) + DIRTY_RADIUS));
+    }
+
+    private void assertNotWholeView() {
+        assertTrue("The whole View was invalidated", mBar.dirtyBottom - mBar.dirtyTop < HEIGHT);
+    }
+
+    @Test
+    public void setProgressInvalidatesBandBetweenPositions() {
+        mBar.setProgress(60);
+        assertDirtyBand(pixelForProgress(50, 0, 100), pixelForProgress(60, 0, 100));
+        assertNotWholeView();
+    }
+
+    @Test
+    public void sameProgressInvalidatesNothing() {
+        mBar.setProgress(50);
+        assertEquals(0, mBar.invalidationCount);
+    }
+
+    @Test
+    public void rangeChangeInvalidatesBandBetweenPositions() {
+        mBar.setRange(0, 200);
+        assertDirtyBand(pixelForProgress(50, 0, 100), pixelForProgress(50, 0, 200));
+        assertNotWholeView();
+    }
+
+    @Test
+    public void dragInvalidatesBandOfEachMove() {
+        final float x = WIDTH / 2f;
+        final float startY = pixelForProgress(50, 0, 100);
+        mBar.onTouchEvent(MotionEvent.obtain(0, 0, MotionEvent.ACTION_DOWN, x, startY, 0));
+        float y = startY;
+        for (int i = 1; i <= 10; i++) {
+            mBar.resetCounters();
+            final float newY = startY - 7 * i;
+            mBar.onTouchEvent(MotionEvent.obtain(0, 16 * i, MotionEvent.ACTION_MOVE, x, newY, 0));
+            assertDirtyBand(y, newY);
+            assertNotWholeView();
+            y = newY;
+        }
+    }
+
+    @Test
+    public void touchToggleInvalidatesSelectedBarDownToBottom() {
+        final float x = WIDTH / 2f;
+        final float y = pixelForProgress(50, 0, 100);
+        mBar.onTouchEvent(MotionEvent.obtain(0, 0, MotionEvent.ACTION_DOWN, x, y, 0));
+        // The selected bar below the thumb changes its color
+        assertDirtyBand(y, y);
+        assertEquals(HEIGHT, mBar.dirtyBottom);
+        assertNotWholeView();
+
+        mBar.resetCounters();
+        mBar.onTouchEvent(MotionEvent.obtain(0, 16, MotionEvent.ACTION_UP, x, y, 0));
+        assertDirtyBand(y, y);
+        assertEquals(HEIGHT, mBar.dirtyBottom);
+        assertNotWholeView();
+    }
+}
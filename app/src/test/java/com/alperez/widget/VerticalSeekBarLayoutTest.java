@@ -0,0 +1,104 @@
+package com.alperez.widget;
+
+import android.graphics.Color;
+import android.view.MotionEvent;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Progress and color updates must not cause layout requests or layout passes. Changes which do affect
+ * the geometry must take effect even when the size of the View stays the same.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 21)
+public class VerticalSeekBarLayoutTest {
+    private static final int WIDTH = 60;
+    private static final int HEIGHT = 400;
+    private static final int THUMB_SIZE = 30;
+    private static final int FRAMES = 30;
+
+    private RecordingSeekBar mBar;
+    private FrameRunner mRunner;
+
+    @Before
+    public void setUp() {
+        mBar = new RecordingSeekBar(RuntimeEnvironment.application);
+        mBar.setElementsSize(THUMB_SIZE, 4, 8);
+        mRunner = new FrameRunner(mBar, WIDTH, HEIGHT);
+    }
+
+    private void assertNoLayoutWork(FrameRunner.Frame[] frames) {
+        for (int i = 0; i < frames.length; i++) {
+            assertEquals("requestLayout() calls in frame "+i, 0, frames[i].requestLayoutCount);
+            assertEquals("onLayout() calls in frame "+i, 0, frames[i].layoutCount);
+        }
+    }
+
+    @Test
+    public void progressUpdatesDoNotLayout() {
+        assertNoLayoutWork(mRunner.run(new FrameRunner.Script() {
+            @Override
+            public void onFrame(RecordingSeekBar bar, int frame) {
+                bar.setProgress(frame * 100f / FRAMES);
+            }
+        }, FRAMES));
+    }
+
+    @Test
+    public void colorUpdatesDoNotLayout() {
+        assertNoLayoutWork(mRunner.run(new FrameRunner.Script() {
+            @Override
+            public void onFrame(RecordingSeekBar bar, int frame) {
+                final int color = ((frame & 1) == 0) ? Color.RED : Color.BLUE;
+                bar.setBarColors(color, color, color);
+                bar.setThumbColors(color, color, color);
+            }
+        }, FRAMES));
+    }
+
+    @Test
+    public void sameElementsSizeDoesNotLayout() {
+        assertNoLayoutWork(mRunner.run(new FrameRunner.Script() {
+            @Override
+            public void onFrame(RecordingSeekBar bar, int frame) {
+                bar.setElementsSize(THUMB_SIZE, 2 + (frame & 1), 8);
+            }
+        }, FRAMES));
+    }
+
+    @Test
+    public void paddingChangeUpdatesGeometryWithoutSizeChange() {
+        mBar.resetCounters();
+        mBar.setPadding(10, 0, 10, 0);
+        assertTrue("Padding change was not drawn", mBar.invalidationCount > 0);
+
+        mBar.onTouchEvent(MotionEvent.obtain(0, 0, MotionEvent.ACTION_DOWN, WIDTH / 2f, HEIGHT / 2f, 0));
+        final RecordingCanvas canvas = mRunner.drawFrame();
+        // The touched wrapper spans the new content width, plus the anti-aliasing margin
+        assertEquals(WIDTH - 20 + 2, canvas.lastBitmapWidth);
+    }
+
+    @Test
+    public void multiThumbPositionsFollowGeometryChangeWithoutSizeChange() {
+        mBar.setThumbValues(new float[] {20, 50, 80});
+        mRunner.drawFrame();
+
+        mBar.setElementsSize(50, 4, 8);
+        mBar.setPadding(0, 10, 0, 10);
+        final RecordingCanvas canvas = mRunner.drawFrame();
+        // The upper thumb is drawn last, the selected bar starts at it
+        final float top = 10 + 25;
+        final float bottom = HEIGHT - 10 - 25;
+        final float upperThumbY = bottom - 0.8f * (bottom - top);
+        assertEquals(upperThumbY, canvas.lastBitmapCenterY, 0.01f);
+        assertEquals(upperThumbY, canvas.lastLineStartY, 0.01f);
+    }
+}
@@ -0,0 +1,248 @@
+package com.alperez.widget;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.SurfaceTexture;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Frames must be drawn on the shared render thread between the surface callbacks only, and values set from
+ * other threads must reach the drawn frames. The surface is replaced with a recording sink.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 21)
+public class VerticalSeekBarTextureViewTest {
+    private static final int WIDTH = 60;
+    private static final int HEIGHT = 400;
+    private static final float TOP = VerticalSeekBarStyle.DEFAULT.thumbSize / 2f;
+    private static final float BOTTOM = HEIGHT - VerticalSeekBarStyle.DEFAULT.thumbSize / 2f;
+    private static final long TIMEOUT_MS = 5000;
+
+    /**
+     * Records the frames. Written on the render thread, read by the test.
+     */
+    private static final class RecordingSink implements VerticalSeekBarTextureView.FrameSink {
+        private final RecordingCanvas canvas = new RecordingCanvas();
+        int frames;
+        float thumbCenterY = Float.NaN;
+        Thread renderThread;
+        boolean released;
+
+        @Override
+        public Canvas lockCanvas() {
+            canvas.reset();
+            return canvas;
+        }
+
+        @Override
+        public synchronized void unlockCanvasAndPost(Canvas canvas) {
+            frames ++;
+            thumbCenterY = this.canvas.lastBitmapCenterY;
+            renderThread = Thread.currentThread();
+            notifyAll();
+        }
+
+        @Override
+        public synchronized void release() {
+            released = true;
+            renderThread = Thread.currentThread();
+            notifyAll();
+        }
+
+        synchronized void awaitFrames(int count) throws InterruptedException {
+            final long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+            while (frames < count) {
+                final long left = deadline - System.currentTimeMillis();
+                assertTrue("Frame "+count+" was not drawn", left > 0);
+                wait(left);
+            }
+        }
+
+        synchronized void awaitThumbAt(float y) throws InterruptedException {
+            final long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+            while (thumbCenterY != y) {
+                final long left = deadline - System.currentTimeMillis();
+                assertTrue("Thumb is drawn at "+thumbCenterY+" instead of "+y, left > 0);
+                wait(left);
+            }
+        }
+
+        synchronized void awaitReleased() throws InterruptedException {
+            final long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+            while (!released) {
+                final long left = deadline - System.currentTimeMillis();
+                assertTrue("Surface was not released", left > 0);
+                wait(left);
+            }
+        }
+    }
+
+    private static final class TestTextureView extends VerticalSeekBarTextureView {
+        private final SharedRenderThread renderThread;
+        RecordingSink sink;
+
+        TestTextureView(Context context, SharedRenderThread renderThread) {
+            super(context);
+            this.renderThread = renderThread;
+        }
+
+        @Override
+        SharedRenderThread getRenderThread() {
+            return renderThread;
+        }
+
+        @Override
+        FrameSink createFrameSink(SurfaceTexture surfaceTexture) {
+            sink = new RecordingSink();
+            return sink;
+        }
+    }
+
+    private SharedRenderThread mRenderThread;
+
+    @Before
+    public void setUp() {
+        mRenderThread = new SharedRenderThread();
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        final Thread thread = mRenderThread.getThread();
+        if (thread != null) {
+            thread.join(TIMEOUT_MS);
+        }
+    }
+
+    private TestTextureView newLaidOutView() {
+        final TestTextureView view = new TestTextureView(RuntimeEnvironment.application, mRenderThread);
+        view.layout(0, 0, WIDTH, HEIGHT);
+        return view;
+    }
+
+    private static void setProgressFromBackground(final VerticalSeekBarTextureView view, final float progress) throws InterruptedException {
+        final Thread producer = new Thread() {
+            @Override
+            public void run() {
+                view.setProgress(progress);
+            }
+        };
+        producer.start();
+        producer.join();
+    }
+
+    @Test
+    public void framesAreDrawnOnRenderThreadWhileSurfaceIsAvailable() throws InterruptedException {
+        final TestTextureView view = newLaidOutView();
+        assertNull("Render thread started without a surface", mRenderThread.getThread());
+
+        view.onSurfaceTextureAvailable(null, WIDTH, HEIGHT);
+        final RecordingSink sink = view.sink;
+        sink.awaitFrames(1);
+        final Thread renderThread = mRenderThread.getThread();
+        assertNotNull(renderThread);
+        synchronized (sink) {
+            assertSame(renderThread, sink.renderThread);
+        }
+        assertNotSame(Thread.currentThread(), renderThread);
+
+        // The surface texture is released by the render thread
+        assertFalse(view.onSurfaceTextureDestroyed(null));
+        sink.awaitReleased();
+        renderThread.join(TIMEOUT_MS);
+        assertFalse("Render thread is running without surfaces", renderThread.isAlive());
+        assertNull(mRenderThread.getThread());
+
+        final int frames;
+        synchronized (sink) {
+            frames = sink.frames;
+        }
+        view.setProgress(10);
+        assertNull("Render thread restarted without a surface", mRenderThread.getThread());
+        synchronized (sink) {
+            assertEquals(frames, sink.frames);
+        }
+    }
+
+    @Test
+    public void progressSetFromAnotherThreadIsDrawn() throws InterruptedException {
+        final TestTextureView view = newLaidOutView();
+        view.onSurfaceTextureAvailable(null, WIDTH, HEIGHT);
+        view.sink.awaitThumbAt((TOP + BOTTOM) / 2f);
+
+        setProgressFromBackground(view, 100);
+        assertEquals(100, view.getProgress(), 0);
+        view.sink.awaitThumbAt(TOP);
+
+        // Clamped to the range before the hand-over
+        setProgressFromBackground(view, -20);
+        assertEquals(0, view.getProgress(), 0);
+        view.sink.awaitThumbAt(BOTTOM);
+
+        view.onSurfaceTextureDestroyed(null);
+    }
+
+    @Test
+    public void newSurfaceKeepsProgress() throws InterruptedException {
+        final TestTextureView view = newLaidOutView();
+        view.onSurfaceTextureAvailable(null, WIDTH, HEIGHT);
+        final RecordingSink first = view.sink;
+        setProgressFromBackground(view, 0);
+        first.awaitThumbAt(BOTTOM);
+        view.onSurfaceTextureDestroyed(null);
+        first.awaitReleased();
+
+        view.onSurfaceTextureAvailable(null, WIDTH, HEIGHT);
+        assertNotSame(first, view.sink);
+        view.sink.awaitThumbAt(BOTTOM);
+        view.onSurfaceTextureDestroyed(null);
+    }
+
+    @Test
+    public void allViewsShareOneRenderThread() throws InterruptedException {
+        final TestTextureView a = newLaidOutView();
+        final TestTextureView b = newLaidOutView();
+        a.onSurfaceTextureAvailable(null, WIDTH, HEIGHT);
+        b.onSurfaceTextureAvailable(null, WIDTH, HEIGHT);
+        a.sink.awaitFrames(1);
+        b.sink.awaitFrames(1);
+        synchronized (a.sink) {
+            synchronized (b.sink) {
+                assertSame(a.sink.renderThread, b.sink.renderThread);
+            }
+        }
+
+        // The thread keeps serving the other view
+        final Thread renderThread = mRenderThread.getThread();
+        a.onSurfaceTextureDestroyed(null);
+        a.sink.awaitReleased();
+        setProgressFromBackground(b, 100);
+        b.sink.awaitThumbAt(TOP);
+        assertSame(renderThread, mRenderThread.getThread());
+        b.onSurfaceTextureDestroyed(null);
+    }
+
+    @Test
+    public void factoryFallsBackToSeekBarBeforeApi14() {
+        final Context context = RuntimeEnvironment.application;
+        assertTrue(VerticalSeekBarFactory.create(context, 10) instanceof VerticalSeekBar);
+        assertTrue(VerticalSeekBarFactory.create(context, 13) instanceof VerticalSeekBar);
+        assertTrue(VerticalSeekBarFactory.create(context, 14) instanceof VerticalSeekBarTextureView);
+        final VerticalSeekBarControl control = VerticalSeekBarFactory.create(context, 21);
+        assertSame(control, control.getView());
+    }
+}
@@ -0,0 +1,35 @@
+package com.alperez.widget.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link LevelMeter} on the audio thread (per block) and on the UI thread (per frame). Must be allocation-free.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LevelMeterBenchmark {
+    private final LevelMeter meter = new LevelMeter();
+    private long frameTimeMs;
+    private int block;
+
+    @Benchmark
+    public void publish() {
+        block ++;
+        meter.publish((block & 63) / 64f, (block & 31) / 64f);
+    }
+
+    @Benchmark
+    public boolean update() {
+        frameTimeMs += 16;
+        meter.publish((frameTimeMs & 63) / 64f, (frameTimeMs & 31) / 64f);
+        return meter.update(frameTimeMs);
+    }
+}
@@ -0,0 +1,28 @@
+package com.alperez.widget.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the {@link MetricsRecorder} per touch event and per drawn frame. Must be allocation-free.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MetricsRecorderBenchmark {
+    private final MetricsRecorder recorder = new MetricsRecorder();
+    private long timeMs;
+
+    @Benchmark
+    public void eventAndFrame() {
+        timeMs += 8;
+        recorder.onInputEvent(timeMs);
+        recorder.onFrameDrawn(timeMs * 1000000, timeMs * 1000000 + 150000, timeMs + 4);
+    }
+}
@@ -0,0 +1,41 @@
+package com.alperez.widget.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link ProgressEventBuffer} per event - one drag sample offered and drained in batches of 16.
+ * Must be allocation-free.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ProgressEventBufferBenchmark {
+    private final ProgressEventBuffer dropOldest = new ProgressEventBuffer(256, ProgressEventBuffer.OVERFLOW_DROP_OLDEST);
+    private final ProgressEventBuffer coalesce = new ProgressEventBuffer(256, ProgressEventBuffer.OVERFLOW_COALESCE);
+    private final long[] timestamps = new long[16];
+    private final float[] values = new float[16];
+    private long timeMs;
+
+    @Benchmark
+    public int offerAndDrainDropOldest() {
+        return offerAndDrain(dropOldest);
+    }
+
+    @Benchmark
+    public int offerAndDrainCoalesce() {
+        return offerAndDrain(coalesce);
+    }
+
+    private int offerAndDrain(ProgressEventBuffer buffer) {
+        timeMs ++;
+        buffer.offer(timeMs, (float) (timeMs & 127));
+        return ((timeMs & 15) == 0) ? buffer.drain(timestamps, values) : 0;
+    }
+}
@@ -0,0 +1,58 @@
+package com.alperez.widget.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-event cost of nonlinear pixel/value conversion via {@link ScaleTable}, compared to direct
+ * evaluation of the {@link ValueScale}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ScaleTableBenchmark {
+    private static final int N_POINTS = 1024;   // Must be power of 2
+
+    private final ValueScale scale = ValueScale.decibel();
+    private final ScaleTable table = new ScaleTable();
+    private final float[] positions = new float[N_POINTS];
+    private final float[] values = new float[N_POINTS];
+    private int index;
+
+    @Setup
+    public void setUp() {
+        table.build(scale, -60f, 12f, 680f);
+        Random rnd = new Random(42);
+        for (int i = 0; i < N_POINTS; i++) {
+            positions[i] = rnd.nextFloat();
+            values[i] = -60f + 72f * rnd.nextFloat();
+        }
+    }
+
+    private int nextIndex() {
+        return index = (index + 1) & (N_POINTS - 1);
+    }
+
+    @Benchmark
+    public float tablePixelToValue() {
+        return table.valueAt(positions[nextIndex()]);
+    }
+
+    @Benchmark
+    public float tableValueToPixel() {
+        return table.positionOf(values[nextIndex()]);
+    }
+
+    @Benchmark
+    public double directPixelToValue() {
+        return scale.valueAt(positions[nextIndex()], -60f, 12f);
+    }
+}
@@ -0,0 +1,73 @@
+package com.alperez.widget.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the per-touch-event path of the {@link VerticalSeekBarModel}:
+ * hit-testing and pixel/value conversion.
+ *
+ * Run with "gradlew :benchmark:jmh". The gc profiler reports allocation rate, which must be zero.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class VerticalSeekBarModelBenchmark {
+    private static final int N_POINTS = 1024;   // Must be power of 2
+    private static final int VIEW_WIDTH = 96;
+    private static final int VIEW_HEIGHT = 720;
+
+    private VerticalSeekBarModel model;
+    private final float[] touchX = new float[N_POINTS];
+    private final float[] touchY = new float[N_POINTS];
+    private final float[] values = new float[N_POINTS];
+    private int index;
+
+    @Setup
+    public void setUp() {
+        model = new VerticalSeekBarModel();
+        model.setThumbSize(40);
+        model.setPreferredTouchableAreaWidth(60);
+        model.setPadding(8, 8, 8, 8);
+        model.setRange(0, 127);
+        model.layout(VIEW_WIDTH, VIEW_HEIGHT);
+
+        // Precomputed input, so the random generator is not measured
+        Random rnd = new Random(42);
+        for (int i = 0; i < N_POINTS; i++) {
+            touchX[i] = rnd.nextFloat() * VIEW_WIDTH;
+            touchY[i] = rnd.nextFloat() * VIEW_HEIGHT;
+            values[i] = rnd.nextFloat() * 127f;
+        }
+    }
+
+    private int nextIndex() {
+        return index = (index + 1) & (N_POINTS - 1);
+    }
+
+    @Benchmark
+    public boolean hitTest() {
+        final int i = nextIndex();
+        return model.isTouchValid(touchX[i], touchY[i]);
+    }
+
+    @Benchmark
+    public float pixelToValue() {
+        model.setThumbPixelPosition(touchY[nextIndex()]);
+        return model.getProgress();
+    }
+
+    @Benchmark
+    public float valueToPixel() {
+        model.setProgress(values[nextIndex()]);
+        return model.getPixelYPosition();
+    }
+}
@@ -0,0 +1,158 @@
+package com.alperez.widget.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Per-event and per-frame paths of the core classes must not allocate after warm-up.
+ */
+public class AllocationFreeTest {
+    private static final int WARM_UP_ITERATIONS = 20000;
+    private static final int MEASURED_ROUNDS = 3;
+    private static final int MEASURED_ITERATIONS = 1000;
+
+    private static final com.sun.management.ThreadMXBean THREADS = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private long mMeasurementOverhead;
+
+    @Before
+    public void setUp() {
+        assertTrue("The JVM does not count allocated memory per thread", THREADS.isThreadAllocatedMemorySupported());
+        THREADS.setThreadAllocatedMemoryEnabled(true);
+        // Reading of the counter allocates by itself on some JVMs
+        mMeasurementOverhead = Long.MAX_VALUE;
+        for (int i = 0; i < 16; i++) {
+            final long start = allocatedBytes();
+            mMeasurementOverhead = Math.min(mMeasurementOverhead, allocatedBytes() - start);
+        }
+    }
+
+    private static long allocatedBytes() {
+        return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private void assertAllocationFree(String name, Runnable operation) {
+        for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+            operation.run();
+        }
+        // The best of a few rounds, so a one-time JIT event in the middle of a round does not count
+        long allocated = Long.MAX_VALUE;
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            final long start = allocatedBytes();
+            for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+                operation.run();
+            }
+            final long end = allocatedBytes();
+            allocated = Math.min(allocated, end - start - mMeasurementOverhead);
+        }
+        assertEquals(name+" allocated bytes", 0, allocated);
+    }
+
+    @Test
+    public void modelTouchPath() {
+        final VerticalSeekBarModel model = new VerticalSeekBarModel();
+        model.setThumbSize(30);
+        model.layout(60, 400);
+        model.setScale(ValueScale.decibel());
+        model.setRange(-60, 6);
+        assertAllocationFree("VerticalSeekBarModel", new Runnable() {
+            private int mStep;
+
+            @Override
+            public void run() {
+                final float y = 15 + (mStep++ % 370);
+                if (model.isTouchValid(30, y)) {
+                    model.setThumbPixelPosition(y);
+                }
+            }
+        });
+    }
+
+    @Test
+    public void multiThumbMove() {
+        final VerticalSeekBarModel model = new VerticalSeekBarModel();
+        model.setThumbSize(30);
+        model.layout(60, 400);
+        final MultiThumbModel thumbs = new MultiThumbModel(model);
+        thumbs.setValues(new float[] {20, 50, 80});
+        assertAllocationFree("MultiThumbModel", new Runnable() {
+            private int mStep;
+
+            @Override
+            public void run() {
+                final float y = 15 + (mStep++ % 370);
+                thumbs.moveThumb(thumbs.findNearest(y), y);
+            }
+        });
+    }
+
+    @Test
+    public void metricsRecorder() {
+        final MetricsRecorder metrics = new MetricsRecorder();
+        assertAllocationFree("MetricsRecorder", new Runnable() {
+            private long mTimeMs;
+
+            @Override
+            public void run() {
+                mTimeMs += 16;
+                metrics.onInputEvent(mTimeMs);
+                metrics.onInvalidate(60, 40);
+                metrics.onFrameDrawn(mTimeMs * 1000000L, mTimeMs * 1000000L + 500000L, mTimeMs + 4);
+            }
+        });
+    }
+
+    @Test
+    public void progressEventBuffer() {
+        final ProgressEventBuffer buffer = new ProgressEventBuffer(64, ProgressEventBuffer.OVERFLOW_COALESCE);
+        final long[] timestamps = new long[16];
+        final float[] values = new float[16];
+        assertAllocationFree("ProgressEventBuffer", new Runnable() {
+            private long mTimeMs;
+
+            @Override
+            public void run() {
+                for (int i = 0; i < 24; i++) {
+                    mTimeMs ++;
+                    buffer.offer(mTimeMs, mTimeMs & 127);
+                }
+                buffer.drain(timestamps, values);
+            }
+        });
+    }
+
+    @Test
+    public void levelMeter() {
+        final LevelMeter meter = new LevelMeter();
+        assertAllocationFree("LevelMeter", new Runnable() {
+            private long mFrameTimeMs;
+
+            @Override
+            public void run() {
+                mFrameTimeMs += 16;
+                meter.publish((mFrameTimeMs & 63) / 64f, (mFrameTimeMs & 31) / 64f);
+                meter.update(mFrameTimeMs);
+            }
+        });
+    }
+
+    @Test
+    public void touchPredictor() {
+        final TouchPredictor predictor = new TouchPredictor();
+        assertAllocationFree("TouchPredictor", new Runnable() {
+            private long mTimeMs;
+
+            @Override
+            public void run() {
+                mTimeMs += 8;
+                predictor.addSample(mTimeMs, (mTimeMs % 400) * 0.5f);
+                predictor.predict(16);
+            }
+        });
+    }
+}
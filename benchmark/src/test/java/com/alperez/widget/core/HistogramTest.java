@@ -0,0 +1,156 @@
+package com.alperez.widget.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HistogramTest {
+    private static final int SUB_BUCKETS = 8;
+    // 61 powers of 2 from 8 to 2^63 with 8 sub-buckets each
+    private static final int BUCKET_COUNT = 61 * SUB_BUCKETS;
+
+    @Test
+    public void smallValuesHaveOwnBuckets() {
+        for (int value = 0; value < SUB_BUCKETS; value++) {
+            assertEquals(value, Histogram.bucketIndex(value));
+            assertEquals(value, Histogram.bucketLowerBound(value));
+        }
+        // The first power of 2 above them still has buckets of width 1
+        assertEquals(8, Histogram.bucketIndex(8));
+        assertEquals(15, Histogram.bucketIndex(15));
+        assertEquals(16, Histogram.bucketIndex(16));
+        assertEquals(16, Histogram.bucketIndex(17));
+        assertEquals(17, Histogram.bucketIndex(18));
+    }
+
+    @Test
+    public void powersOfTwoStartNewBucketBlocks() {
+        for (int exponent = 3; exponent < 63; exponent++) {
+            final long power = 1L << exponent;
+            final int index = Histogram.bucketIndex(power);
+            assertEquals("2^"+exponent, (exponent - 2) * SUB_BUCKETS, index);
+            assertEquals("2^"+exponent, power, Histogram.bucketLowerBound(index));
+            assertEquals("2^"+exponent+" - 1", index - 1, Histogram.bucketIndex(power - 1));
+        }
+        assertEquals(BUCKET_COUNT - 1, Histogram.bucketIndex(Long.MAX_VALUE));
+        assertEquals(Long.MAX_VALUE, Histogram.bucketLowerBound(BUCKET_COUNT));
+    }
+
+    @Test
+    public void eachPowerOfTwoIsSplitIntoEightEqualSubBuckets() {
+        for (int exponent = 3; exponent < 62; exponent++) {
+            final long power = 1L << exponent;
+            final long width = power / SUB_BUCKETS;
+            final int first = Histogram.bucketIndex(power);
+            for (int sub = 0; sub < SUB_BUCKETS; sub++) {
+                final long lower = power + sub * width;
+                assertEquals("2^"+exponent+" sub-bucket "+sub, lower, Histogram.bucketLowerBound(first + sub));
+                assertEquals(first + sub, Histogram.bucketIndex(lower));
+                assertEquals(first + sub, Histogram.bucketIndex(lower + width - 1));
+            }
+            assertEquals(2 * power, Histogram.bucketLowerBound(first + SUB_BUCKETS));
+        }
+    }
+
+    @Test
+    public void valuesFallWithinBoundsOfTheirBuckets() {
+        long value = 1;
+        while (value > 0) {
+            for (long v = value - 1; v <= value + 1 && v >= 0; v++) {
+                final int index = Histogram.bucketIndex(v);
+                assertTrue("Value "+v, Histogram.bucketLowerBound(index) <= v);
+                assertTrue("Value "+v, index == BUCKET_COUNT - 1 || v < Histogram.bucketLowerBound(index + 1));
+            }
+            value = value * 3 + 1;
+        }
+    }
+
+    @Test
+    public void emptyHistogramReportsZeros() {
+        final Histogram histogram = new Histogram();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMin());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getMean(), 0);
+        assertEquals(0, histogram.getValueAtPercentile(50));
+    }
+
+    @Test
+    public void percentilesReportUpperBoundOfBucket() {
+        final Histogram histogram = new Histogram();
+        for (int value = 1; value <= 100; value++) {
+            histogram.record(value);
+        }
+        assertEquals(100, histogram.getCount());
+        assertEquals(1, histogram.getMin());
+        assertEquals(100, histogram.getMax());
+        assertEquals(50.5, histogram.getMean(), 1e-9);
+
+        // 50 is in [48, 52), 90 is in [88, 96)
+        assertEquals(51, histogram.getValueAtPercentile(50));
+        assertEquals(95, histogram.getValueAtPercentile(90));
+        // 99 and 100 are in [96, 104), limited by the max value
+        assertEquals(100, histogram.getValueAtPercentile(99));
+        assertEquals(100, histogram.getValueAtPercentile(100));
+        // At least one value is always taken
+        assertEquals(1, histogram.getValueAtPercentile(0));
+    }
+
+    @Test
+    public void percentilesOfSmallValuesAreExact() {
+        final Histogram histogram = new Histogram();
+        histogram.record(3);
+        histogram.record(0);
+        histogram.record(2);
+        histogram.record(1);
+        assertEquals(0, histogram.getValueAtPercentile(25));
+        assertEquals(1, histogram.getValueAtPercentile(50));
+        assertEquals(2, histogram.getValueAtPercentile(50.1));
+        assertEquals(3, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void percentileErrorIsBelowOneEighth() {
+        final Histogram histogram = new Histogram();
+        final long[] values = new long[1000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 1000L + 37L * i * i;
+            histogram.record(values[i]);
+        }
+        for (int percentile = 1; percentile <= 100; percentile++) {
+            final long exact = values[percentile * values.length / 100 - 1];
+            final long reported = histogram.getValueAtPercentile(percentile);
+            assertTrue("p"+percentile+": "+reported+" < "+exact, reported >= exact);
+            assertTrue("p"+percentile+": "+reported+" vs "+exact, reported - exact < exact / 8);
+        }
+    }
+
+    @Test
+    public void negativeValuesAreRecordedAsZero() {
+        final Histogram histogram = new Histogram();
+        histogram.record(-5);
+        assertEquals(1, histogram.getCount());
+        assertEquals(0, histogram.getMin());
+        assertEquals(0, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void copyIsIndependentOfSource() {
+        final Histogram source = new Histogram();
+        source.record(10);
+        source.record(20);
+        final Histogram copy = new Histogram();
+        copy.record(1000);
+        source.copyTo(copy);
+        source.record(30);
+        source.reset();
+
+        assertEquals(2, copy.getCount());
+        assertEquals(10, copy.getMin());
+        assertEquals(20, copy.getMax());
+        assertEquals(15, copy.getMean(), 1e-9);
+        assertEquals(0, source.getCount());
+        assertEquals(0, source.getValueAtPercentile(100));
+    }
+}
@@ -0,0 +1,53 @@
+package com.alperez.widget.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LevelMeterTest {
+    private static final long FRAME_MS = 16;
+
+    @Test
+    public void peaksPublishedBetweenFramesAreFolded() {
+        final LevelMeter meter = new LevelMeter();
+        meter.publish(0.2f, 0.1f);
+        meter.publish(0.9f, 0.3f);
+        meter.publish(0.4f, 0.2f);
+        assertTrue(meter.update(0));
+        assertEquals(0.9f, meter.getPeak(), 0);
+        assertEquals(0.3f, meter.getRms(), 0);
+        assertEquals(0.9f, meter.getPeakHold(), 0);
+    }
+
+    @Test
+    public void meterIsIdleOnlyWhenNothingIsPublishedAndLevelsHaveDecayed() {
+        final LevelMeter meter = new LevelMeter();
+        meter.setHoldTime(0);
+        meter.setDecayRate(10);
+        assertTrue(meter.isIdle());
+
+        meter.publish(0.5f, 0.25f);
+        assertTrue(meter.hasNewLevels());
+        assertFalse(meter.isIdle());
+
+        long time = 0;
+        meter.update(time);
+        assertFalse(meter.hasNewLevels());
+        assertFalse(meter.isIdle());
+
+        // 0.5 of the full scale decays in 50 ms
+        int frames = 0;
+        while (!meter.isIdle()) {
+            time += FRAME_MS;
+            meter.update(time);
+            assertTrue("Levels do not decay", ++frames < 10);
+        }
+        assertEquals(0, meter.getPeakHold(), 0);
+        assertFalse("An idle meter changed", meter.update(time + FRAME_MS));
+
+        meter.publish(0.1f, 0.1f);
+        assertFalse(meter.isIdle());
+    }
+}
@@ -0,0 +1,90 @@
+package com.alperez.widget.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MetricsRecorderTest {
+    private static final long FRAME_MS = 16;
+
+    @Test
+    public void latencyIsMeasuredFromOldestPendingEvent() {
+        final MetricsRecorder recorder = new MetricsRecorder();
+        recorder.onInputEvent(100);
+        recorder.onInputEvent(90);
+        recorder.onInputEvent(110);
+        recorder.onFrameDrawn(0, 0, 120);
+        // A frame without input records neither latency nor events
+        recorder.onFrameDrawn(0, 0, 136);
+
+        final MetricsRecorder.Snapshot snapshot = recorder.snapshot();
+        assertEquals(1, snapshot.getTouchToDrawLatencyMs().getCount());
+        assertEquals(30, snapshot.getTouchToDrawLatencyMs().getMax());
+        assertEquals(1, snapshot.getEventsPerFrame().getCount());
+        assertEquals(3, snapshot.getEventsPerFrame().getMax());
+        assertEquals(2, snapshot.getDrawDurationNanos().getCount());
+    }
+
+    @Test
+    public void latencyPercentilesAreTakenFromSnapshot() {
+        final MetricsRecorder recorder = new MetricsRecorder();
+        long now = 0;
+        for (int latency = 1; latency <= 100; latency++) {
+            now += FRAME_MS;
+            recorder.onInputEvent(now - latency);
+            recorder.onFrameDrawn(0, 1000L * latency, now);
+        }
+        final MetricsRecorder.Snapshot snapshot = recorder.snapshot();
+        final Histogram latencies = snapshot.getTouchToDrawLatencyMs();
+        assertEquals(100, latencies.getCount());
+        assertEquals(51, latencies.getValueAtPercentile(50));
+        assertEquals(95, latencies.getValueAtPercentile(90));
+        assertEquals(100, latencies.getValueAtPercentile(99));
+
+        // Durations 1..100 us are reported within one eighth of the exact values
+        final Histogram durations = snapshot.getDrawDurationNanos();
+        final long p50 = durations.getValueAtPercentile(50);
+        assertTrue("p50 "+p50, p50 >= 50000 && p50 < 50000 + 50000 / 8);
+
+        // Further recording does not change the snapshot
+        recorder.onInputEvent(now);
+        recorder.onFrameDrawn(0, 0, now + 500);
+        recorder.reset();
+        assertEquals(100, latencies.getCount());
+        assertEquals(100, latencies.getValueAtPercentile(100));
+        assertEquals(0, recorder.snapshot().getTouchToDrawLatencyMs().getCount());
+    }
+
+    @Test
+    public void redrawsAreCountedPerFullSecond() {
+        final MetricsRecorder recorder = new MetricsRecorder();
+        // 100 frames per second for 2 seconds
+        for (long now = 0; now <= 2000; now += 10) {
+            recorder.onFrameDrawn(0, 0, now);
+        }
+        Histogram rate = recorder.snapshot().getRedrawsPerSecond();
+        assertEquals(2, rate.getCount());
+        assertEquals(100, rate.getMin());
+        assertEquals(100, rate.getMax());
+
+        // An idle gap longer than the window is not recorded as a low rate
+        recorder.onFrameDrawn(0, 0, 5000);
+        rate = recorder.snapshot().getRedrawsPerSecond();
+        assertEquals(2, rate.getCount());
+    }
+
+    @Test
+    public void invalidatedAreaIsSummedPerFrame() {
+        final MetricsRecorder recorder = new MetricsRecorder();
+        recorder.onInvalidate(10, 20);
+        recorder.onInvalidate(5, 4);
+        recorder.onInvalidate(0, 100);
+        recorder.onFrameDrawn(0, 0, 0);
+        recorder.onFrameDrawn(0, 0, FRAME_MS);
+
+        final Histogram area = recorder.snapshot().getInvalidatedArea();
+        assertEquals(1, area.getCount());
+        assertEquals(220, area.getMax());
+    }
+}
@@ -0,0 +1,127 @@
+package com.alperez.widget.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MultiThumbModelTest {
+    private static final float DELTA = 1e-3f;
+
+    private VerticalSeekBarModel mTrack;
+    private MultiThumbModel mThumbs;
+
+    @Before
+    public void setUp() {
+        mTrack = new VerticalSeekBarModel();
+        mTrack.setThumbSize(30);
+        mTrack.layout(60, 400);
+        mThumbs = new MultiThumbModel(mTrack);
+    }
+
+    @Test
+    public void valuesAreSortedAndKeepMinimumDistance() {
+        mThumbs.setMinDistance(10);
+        mThumbs.setValues(new float[] {50, 20, 55, 100});
+        assertEquals(4, mThumbs.getCount());
+        assertEquals(20, mThumbs.getValue(0), DELTA);
+        assertEquals(50, mThumbs.getValue(1), DELTA);
+        assertEquals(60, mThumbs.getValue(2), DELTA);
+        assertEquals(100, mThumbs.getValue(3), DELTA);
+    }
+
+    @Test
+    public void thumbsPushedOutOfRangeAreMovedBack() {
+        mThumbs.setMinDistance(10);
+        mThumbs.setValues(new float[] {95, 100, 100});
+        assertEquals(80, mThumbs.getValue(0), DELTA);
+        assertEquals(90, mThumbs.getValue(1), DELTA);
+        assertEquals(100, mThumbs.getValue(2), DELTA);
+    }
+
+    @Test
+    public void thumbsDoNotCross() {
+        mThumbs.setValues(new float[] {20, 50, 80});
+        assertTrue(mThumbs.setValue(1, 95));
+        assertEquals(80, mThumbs.getValue(1), DELTA);
+        assertTrue(mThumbs.setValue(1, -5));
+        assertEquals(20, mThumbs.getValue(1), DELTA);
+        assertFalse(mThumbs.setValue(1, 10));
+    }
+
+    @Test
+    public void snappedValueStaysBetweenNeighbours() {
+        // The minimum distance is not a multiple of the step
+        mTrack.setStepSize(5);
+        mThumbs.setMinDistance(7);
+        mThumbs.setValues(new float[] {20, 50, 80});
+
+        // The lower bound is 27, its nearest detent 25 would be too close to the lower neighbour
+        assertTrue(mThumbs.setValue(1, 24));
+        assertEquals(30, mThumbs.getValue(1), DELTA);
+        // The upper bound is 73, its nearest detent 75 would be too close to the upper neighbour
+        assertTrue(mThumbs.setValue(1, 90));
+        assertEquals(70, mThumbs.getValue(1), DELTA);
+        // Between the bounds the nearest detent is taken
+        assertTrue(mThumbs.setValue(1, 52.4f));
+        assertEquals(50, mThumbs.getValue(1), DELTA);
+        assertFalse(mThumbs.setValue(1, 51));
+
+        // Dragging takes the same path
+        assertTrue(mThumbs.moveThumb(1, mTrack.getPixelForValue(26)));
+        assertEquals(30, mThumbs.getValue(1), DELTA);
+        assertEquals(mTrack.getPixelForValue(30), mThumbs.getPixelY(1), DELTA);
+    }
+
+    @Test
+    public void thumbsPushedByNeighboursSnapToDetents() {
+        mTrack.setStepSize(5);
+        mThumbs.setMinDistance(7);
+        mThumbs.setValues(new float[] {20, 22, 96, 100});
+        assertEquals(20, mThumbs.getValue(0), DELTA);
+        assertEquals(30, mThumbs.getValue(1), DELTA);
+        assertEquals(90, mThumbs.getValue(2), DELTA);
+        assertEquals(100, mThumbs.getValue(3), DELTA);
+    }
+
+    @Test
+    public void findNearestPicksClosestThumb() {
+        mThumbs.setValues(new float[] {20, 50, 80});
+        assertEquals(0, mThumbs.findNearest(mTrack.getPixelForValue(0)));
+        assertEquals(1, mThumbs.findNearest(mTrack.getPixelForValue(45)));
+        assertEquals(1, mThumbs.findNearest(mTrack.getPixelForValue(60)));
+        assertEquals(2, mThumbs.findNearest(mTrack.getPixelForValue(70)));
+        assertEquals(2, mThumbs.findNearest(mTrack.getPixelForValue(100)));
+    }
+
+    @Test
+    public void findNearestPicksStackedThumbWhichCanMoveTowardsPointer() {
+        mThumbs.setValues(new float[] {50, 50});
+        // Above the stack the upper thumb is taken, below it - the lower one
+        assertEquals(1, mThumbs.findNearest(mTrack.getPixelForValue(60)));
+        assertEquals(0, mThumbs.findNearest(mTrack.getPixelForValue(40)));
+    }
+
+    @Test
+    public void pixelPositionsFollowTrackRelayout() {
+        mThumbs.setValues(new float[] {20, 50, 80});
+        // Padding and thumb size changes re-lay out the track without any call to the thumbs model
+        mTrack.setPadding(0, 40, 0, 40);
+        mTrack.setThumbSize(50);
+        for (int i = 0; i < mThumbs.getCount(); i++) {
+            assertEquals(mTrack.getPixelForValue(mThumbs.getValue(i)), mThumbs.getPixelY(i), DELTA);
+        }
+        assertEquals(1, mThumbs.findNearest(mTrack.getPixelForValue(50)));
+    }
+
+    @Test
+    public void pixelPositionsFollowScaleChange() {
+        mThumbs.setValues(new float[] {20, 50, 80});
+        mTrack.setScale(ValueScale.exponential(3));
+        for (int i = 0; i < mThumbs.getCount(); i++) {
+            assertEquals(mTrack.getPixelForValue(mThumbs.getValue(i)), mThumbs.getPixelY(i), DELTA);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.alperez.widget.core;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ProgressEventBufferTest {
+
+    @Test
+    public void capacityIsRoundedUpToPowerOfTwo() {
+        assertEquals(8, new ProgressEventBuffer(5, ProgressEventBuffer.OVERFLOW_DROP_OLDEST).getCapacity());
+        assertEquals(1, new ProgressEventBuffer(1, ProgressEventBuffer.OVERFLOW_COALESCE).getCapacity());
+    }
+
+    @Test
+    public void eventsAreDrainedInOrder() {
+        final ProgressEventBuffer buffer = new ProgressEventBuffer(8, ProgressEventBuffer.OVERFLOW_DROP_OLDEST);
+        for (int i = 0; i < 5; i++) {
+            buffer.offer(i, i * 10f);
+        }
+        assertEquals(5, buffer.size());
+        final long[] timestamps = new long[3];
+        final float[] values = new float[3];
+        assertEquals(3, buffer.drain(timestamps, values));
+        assertEquals(0, timestamps[0]);
+        assertEquals(20f, values[2], 0);
+        assertEquals(2, buffer.drain(timestamps, values));
+        assertEquals(40f, values[1], 0);
+        assertTrue(buffer.isEmpty());
+        assertEquals(0, buffer.getDroppedCount());
+    }
+
+    @Test
+    public void dropOldestKeepsNewestEvents() {
+        final ProgressEventBuffer buffer = new ProgressEventBuffer(4, ProgressEventBuffer.OVERFLOW_DROP_OLDEST);
+        for (int i = 0; i < 10; i++) {
+            buffer.offer(i, i);
+        }
+        final long[] timestamps = new long[16];
+        final float[] values = new float[16];
+        assertEquals(4, buffer.drain(timestamps, values));
+        for (int i = 0; i < 4; i++) {
+            assertEquals(6 + i, values[i], 0);
+        }
+        assertEquals(6, buffer.getDroppedCount());
+    }
+
+    @Test
+    public void coalesceReplacesNewestEvent() {
+        final ProgressEventBuffer buffer = new ProgressEventBuffer(4, ProgressEventBuffer.OVERFLOW_COALESCE);
+        for (int i = 0; i < 10; i++) {
+            buffer.offer(i, i);
+        }
+        final long[] timestamps = new long[16];
+        final float[] values = new float[16];
+        assertEquals(4, buffer.drain(timestamps, values));
+        assertEquals(0, values[0], 0);
+        assertEquals(1, values[1], 0);
+        assertEquals(2, values[2], 0);
+        assertEquals(9, values[3], 0);
+        assertEquals(9, timestamps[3]);
+        assertEquals(6, buffer.getDroppedCount());
+    }
+
+    /**
+     * The producer replaces the newest event after the consumer has read it, but before the consumer has claimed it.
+     * The consumer must return the replacement, not the value it has read.
+     */
+    @Test
+    public void coalesceDuringReadDeliversReplacement() {
+        final ProgressEventBuffer buffer = new ProgressEventBuffer(1, ProgressEventBuffer.OVERFLOW_COALESCE);
+        buffer.offer(1, 1f);
+        buffer.mBeforeClaimHook = new Runnable() {
+            @Override
+            public void run() {
+                buffer.mBeforeClaimHook = null;
+                buffer.offer(2, 2f);
+            }
+        };
+        final long[] timestamps = new long[4];
+        final float[] values = new float[4];
+        assertEquals(1, buffer.drain(timestamps, values));
+        assertEquals(2, timestamps[0]);
+        assertEquals(2f, values[0], 0);
+        assertEquals(1, buffer.getDroppedCount());
+        assertTrue(buffer.isEmpty());
+    }
+
+    /**
+     * The producer offers bursts which overflow the buffer, then waits until the consumer has received the last
+     * value of the burst. A coalesced value which is lost makes the producer wait forever.
+     */
+    @Test(timeout = 60000)
+    public void coalesceAlwaysDeliversLatestValue() throws InterruptedException {
+        final int capacity = 2;
+        final int bursts = 50000;
+        final ProgressEventBuffer buffer = new ProgressEventBuffer(capacity, ProgressEventBuffer.OVERFLOW_COALESCE);
+        final AtomicLong lastReceived = new AtomicLong(-1);
+        final AtomicLong received = new AtomicLong();
+        final AtomicBoolean stop = new AtomicBoolean();
+        final AtomicReference<String> error = new AtomicReference<String>();
+
+        final Thread consumer = new Thread() {
+            @Override
+            public void run() {
+                final long[] timestamps = new long[capacity];
+                final float[] values = new float[capacity];
+                long last = -1;
+                while (!stop.get()) {
+                    final int n = buffer.drain(timestamps, values);
+                    for (int i = 0; i < n; i++) {
+                        if (timestamps[i] <= last || values[i] != timestamps[i]) {
+                            error.compareAndSet(null, "Event "+timestamps[i]+"="+values[i]+" after "+last);
+                        }
+                        last = timestamps[i];
+                    }
+                    if (n > 0) {
+                        received.addAndGet(n);
+                        lastReceived.set(last);
+                    } else {
+                        Thread.yield();
+                    }
+                }
+            }
+        };
+        consumer.start();
+
+        long offered = 0;
+        try {
+            for (int b = 0; b < bursts && error.get() == null; b++) {
+                final int burst = 1 + b % (2 * capacity + 1);
+                for (int i = 0; i < burst; i++) {
+                    offered ++;
+                    buffer.offer(offered, offered);
+                }
+                final long deadline = System.currentTimeMillis() + 5000;
+                while (lastReceived.get() != offered) {
+                    if (System.currentTimeMillis() > deadline) {
+                        error.compareAndSet(null, "Latest value "+offered+" was not delivered, the last one is "+lastReceived.get());
+                        break;
+                    }
+                    Thread.yield();
+                }
+            }
+        } finally {
+            stop.set(true);
+            consumer.join();
+        }
+
+        assertNull(error.get());
+        assertEquals(offered, received.get() + buffer.getDroppedCount());
+    }
+
+    /**
+     * In the drop-oldest mode overwritten events are counted by the consumer when it skips them.
+     */
+    @Test(timeout = 60000)
+    public void droppedCountAddsUpUnderContention() throws InterruptedException {
+        final int events = 2000000;
+        final ProgressEventBuffer buffer = new ProgressEventBuffer(4, ProgressEventBuffer.OVERFLOW_DROP_OLDEST);
+        final AtomicBoolean done = new AtomicBoolean();
+        final AtomicLong received = new AtomicLong();
+
+        final Thread consumer = new Thread() {
+            @Override
+            public void run() {
+                final long[] timestamps = new long[4];
+                final float[] values = new float[4];
+                long count = 0;
+                for (;;) {
+                    final boolean last = done.get();
+                    final int n = buffer.drain(timestamps, values);
+                    count += n;
+                    if (last && buffer.isEmpty()) break;
+                    if (n == 0) Thread.yield();
+                }
+                received.set(count);
+            }
+        };
+        consumer.start();
+        for (int i = 1; i <= events; i++) {
+            buffer.offer(i, i);
+        }
+        done.set(true);
+        consumer.join();
+
+        assertEquals(events, received.get() + buffer.getDroppedCount());
+    }
+}
@@ -0,0 +1,97 @@
+package com.alperez.widget.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Recorded drags are replayed with and without prediction. The drawn position is compared with the finger
+ * position at the time the frame is shown, one lookahead after the newest sample.
+ */
+public class TouchPredictorTest {
+    private static final long SAMPLE_INTERVAL_MS = 8;
+    private static final long LOOKAHEAD_MS = 16;
+    private static final int SAMPLES = 200;
+
+    private interface Trajectory {
+        float positionAt(long timeMs);
+    }
+
+    /**
+     * @return mean distance between the drawn thumb and the finger
+     */
+    private static float replayLag(Trajectory finger, boolean predict) {
+        final TouchPredictor predictor = new TouchPredictor();
+        double sum = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            final long t = i * SAMPLE_INTERVAL_MS;
+            predictor.addSample(t, finger.positionAt(t));
+            final float drawn = predict ? predictor.predict(LOOKAHEAD_MS) : finger.positionAt(t);
+            sum += Math.abs(drawn - finger.positionAt(t + LOOKAHEAD_MS));
+        }
+        return (float) (sum / SAMPLES);
+    }
+
+    @Test
+    public void predictionRemovesLagOfSteadyDrag() {
+        final Trajectory steady = new Trajectory() {
+            @Override
+            public float positionAt(long timeMs) {
+                return 400 - 0.5f * timeMs;
+            }
+        };
+        final float lagOff = replayLag(steady, false);
+        final float lagOn = replayLag(steady, true);
+        assertEquals(0.5f * LOOKAHEAD_MS, lagOff, 1e-3f);
+        // Only the first sample has no velocity yet
+        assertTrue("Lag with prediction "+lagOn, lagOn < 0.05f * lagOff);
+    }
+
+    @Test
+    public void predictionReducesLagOfOscillatingDrag() {
+        final Trajectory oscillating = new Trajectory() {
+            @Override
+            public float positionAt(long timeMs) {
+                return 200 + 150 * (float) Math.sin(2 * Math.PI * timeMs / 800.0);
+            }
+        };
+        final float lagOff = replayLag(oscillating, false);
+        final float lagOn = replayLag(oscillating, true);
+        assertTrue("Lag with prediction "+lagOn+", without "+lagOff, lagOn < 0.5f * lagOff);
+    }
+
+    @Test
+    public void stationaryFingerIsNotMoved() {
+        final TouchPredictor predictor = new TouchPredictor();
+        for (int i = 0; i < 20; i++) {
+            predictor.addSample(i * SAMPLE_INTERVAL_MS, 123f);
+        }
+        assertEquals(0, predictor.getVelocity(), 0);
+        assertEquals(123f, predictor.predict(LOOKAHEAD_MS), 0);
+    }
+
+    @Test
+    public void samplesOutsideAgeWindowAreIgnored() {
+        final TouchPredictor predictor = new TouchPredictor();
+        for (int i = 0; i < 5; i++) {
+            predictor.addSample(i * SAMPLE_INTERVAL_MS, 100 + 10 * i);
+        }
+        assertEquals(10f / SAMPLE_INTERVAL_MS, predictor.getVelocity(), 1e-4f);
+
+        // The finger rested, then moved again. The fast motion before the rest is history.
+        predictor.addSample(1000, 140);
+        assertEquals(0, predictor.getVelocity(), 0);
+        assertEquals(140, predictor.predict(LOOKAHEAD_MS), 0);
+        assertEquals(1000, predictor.getNewestSampleTime());
+    }
+
+    @Test
+    public void sampleWithSameTimeReplacesPrevious() {
+        final TouchPredictor predictor = new TouchPredictor();
+        predictor.addSample(0, 100);
+        predictor.addSample(8, 110);
+        predictor.addSample(8, 120);
+        assertEquals(20f / 8, predictor.getVelocity(), 1e-4f);
+    }
+}
@@ -0,0 +1,120 @@
+package com.alperez.widget.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class VerticalSeekBarModelTest {
+    private static final float DELTA = 1e-5f;
+
+    private VerticalSeekBarModel mModel;
+
+    @Before
+    public void setUp() {
+        mModel = new VerticalSeekBarModel();
+        mModel.setThumbSize(30);
+        mModel.layout(60, 400);
+    }
+
+    @Test
+    public void continuousModeDoesNotSnap() {
+        assertEquals(0, mModel.getStepCount());
+        assertEquals(33.3f, mModel.snapValue(33.3f), 0);
+        assertEquals(-7f, mModel.snapValue(-7f), 0);
+    }
+
+    @Test
+    public void negativeStepIsRejected() {
+        try {
+            mModel.setStepSize(-1);
+            fail("Negative step was accepted");
+        } catch (IllegalArgumentException expected) {
+        }
+        assertEquals(0, mModel.getStepSize(), 0);
+    }
+
+    @Test
+    public void valuesSnapToNearestStepWithinRange() {
+        mModel.setStepSize(10);
+        assertEquals(10, mModel.getStepCount());
+        assertEquals(0, mModel.snapValue(0), 0);
+        assertEquals(100, mModel.snapValue(100), 0);
+        assertEquals(0, mModel.snapValue(4.9f), 0);
+        assertEquals(10, mModel.snapValue(5.1f), 0);
+        assertEquals(90, mModel.snapValue(94f), 0);
+        // Values beyond the endpoints snap to them
+        assertEquals(0, mModel.snapValue(-3), 0);
+        assertEquals(100, mModel.snapValue(104), 0);
+        assertEquals(100, mModel.snapValue(120), 0);
+    }
+
+    @Test
+    public void nonIntegerStepsSnapWithoutDrift() {
+        mModel.setRange(0, 1);
+        mModel.setStepSize(0.1f);
+        assertEquals(10, mModel.getStepCount());
+        assertEquals(0.3f, mModel.snapValue(0.34f), DELTA);
+        assertEquals(0.7f, mModel.snapValue(0.66f), DELTA);
+        assertEquals(1f, mModel.snapValue(0.96f), DELTA);
+        assertEquals(0f, mModel.snapValue(0.04f), DELTA);
+
+        // Negative min, detents are counted from it
+        mModel.setRange(-1, 1);
+        mModel.setStepSize(0.25f);
+        assertEquals(8, mModel.getStepCount());
+        assertEquals(-1f, mModel.snapValue(-0.88f), DELTA);
+        assertEquals(-0.75f, mModel.snapValue(-0.87f), DELTA);
+        assertEquals(0f, mModel.snapValue(0.1f), DELTA);
+        assertEquals(1f, mModel.snapValue(1f), DELTA);
+    }
+
+    @Test
+    public void maxIsDetentWhenRangeIsNotMultipleOfStep() {
+        // Detents are 0, 3, 6, 9 and 10
+        mModel.setRange(0, 10);
+        mModel.setStepSize(3);
+        assertEquals(4, mModel.getStepCount());
+        assertEquals(0, mModel.snapValue(0), 0);
+        assertEquals(6, mModel.snapValue(7.4f), 0);
+        assertEquals(9, mModel.snapValue(7.6f), 0);
+        assertEquals(9, mModel.snapValue(9.4f), 0);
+        assertEquals(10, mModel.snapValue(9.6f), 0);
+        assertEquals(10, mModel.snapValue(10), 0);
+
+        // Detents are counted from min: 5, 10, 15 and 17
+        mModel.setRange(5, 17);
+        mModel.setStepSize(5);
+        assertEquals(3, mModel.getStepCount());
+        assertEquals(5, mModel.snapValue(5), 0);
+        assertEquals(15, mModel.snapValue(15.9f), 0);
+        assertEquals(17, mModel.snapValue(16.1f), 0);
+        assertEquals(17, mModel.snapValue(17), 0);
+    }
+
+    @Test
+    public void stepLargerThanRangeLeavesOnlyEndpoints() {
+        mModel.setRange(0, 10);
+        mModel.setStepSize(15);
+        assertEquals(1, mModel.getStepCount());
+        assertEquals(0, mModel.snapValue(4), 0);
+        assertEquals(10, mModel.snapValue(6), 0);
+    }
+
+    @Test
+    public void progressAndThumbPositionSnap() {
+        mModel.setRange(0, 10);
+        mModel.setStepSize(3);
+        mModel.setProgress(9.7f);
+        assertEquals(10, mModel.getProgress(), 0);
+        mModel.setProgress(4);
+        assertEquals(3, mModel.getProgress(), 0);
+
+        // A thumb dragged between detents jumps to the nearest one
+        final float pixel = (mModel.getPixelForValue(6) + mModel.getPixelForValue(9)) / 2f - 1;
+        mModel.setThumbPixelPosition(pixel);
+        assertEquals(9, mModel.getProgress(), 0);
+        assertEquals(mModel.getPixelForValue(9), mModel.getPixelYPosition(), DELTA);
+    }
+}